@@ -0,0 +1,98 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.SpringBootRestNewApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/* Полный путь записи через Spring MVC (MockMvc): разбор JSON, валидация, сервис, репозитории и H2 в памяти.
+ * Контекст приложения поднимается один раз на форк, таблицы создаются Hibernate (ddl-auto=create-drop) */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerWriteBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String newEmployeeJson;
+    private int employeeId;
+    private int departmentId;
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        // Аргументы командной строки перекрывают настройки MySQL из application.properties
+        context = new SpringApplicationBuilder(SpringBootRestNewApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--audit.file=target/audit/changes.ndjson",
+                        "--logging.level.root=WARN");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        departmentId = createdId(mockMvc.perform(post("/api/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"departmentName\":\"SALES\",\"minSalary\":1000,\"maxSalary\":5000}")).andReturn());
+
+        newEmployeeJson = "{\"name\":\"ivan\",\"surname\":\"sidorov\",\"birthday\":\"" + LocalDate.now().minusYears(30)
+                + "\",\"salary\":2000,\"department\":{\"id\":" + departmentId + "}}";
+
+        employeeId = createdId(mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(newEmployeeJson)).andReturn());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static int createdId(MvcResult result) throws Exception {
+        var body = result.getResponse().getContentAsString();
+        var start = body.indexOf("\"id\":") + 5;
+        return Integer.parseInt(body.substring(start, body.indexOf(',', start)));
+    }
+
+    @Benchmark
+    public int postEmployee() throws Exception {
+        return mockMvc.perform(post("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(newEmployeeJson)).andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int putEmployee() throws Exception {
+        var salary = 2000 + (counter++ & 1023);
+        return mockMvc.perform(put("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + employeeId + ",\"salary\":" + salary
+                        + ",\"department\":{\"id\":" + departmentId + "}}")).andReturn().getResponse().getStatus();
+    }
+
+    // Изменение minSalary департамента с пересчетом зарплат работников
+    @Benchmark
+    public int putDepartmentWithSalaryClamp() throws Exception {
+        var minSalary = 1000 + (counter++ & 511);
+        return mockMvc.perform(put("/api/departments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + departmentId + ",\"minSalary\":" + minSalary + "}"))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,68 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Employee.equals вызывается в каждом PUT, чтобы определить, нужно ли сохранять изменения
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityEqualsBenchmark {
+
+    private Employee employee;
+    private Employee sameEmployee;
+    private Employee editedEmployee;
+
+    private Employee employeeFactory(String name, Double salary) {
+
+        var department = new Department();
+        department.setId(5);
+        department.setDepartmentName("SALES");
+        department.setMinSalary(850D);
+        department.setMaxSalary(5000D);
+
+        var employee = new Employee();
+        employee.setId(7);
+        employee.setName(name);
+        employee.setSurname("Sidorov");
+        employee.setBirthday(LocalDate.parse("1985-04-17"));
+        employee.setSalary(salary);
+        employee.setDepartment(department);
+
+        return employee;
+    }
+
+    @Setup
+    public void setUp() {
+        employee = employeeFactory("Ivan", 2000D);
+        sameEmployee = employeeFactory("Ivan", 2000D);
+        editedEmployee = employeeFactory("Ivan", 2100D);
+    }
+
+    @Benchmark
+    public boolean equals_Same() {
+        return employee.equals(sameEmployee);
+    }
+
+    @Benchmark
+    public boolean equals_Edited() {
+        return employee.equals(editedEmployee);
+    }
+
+    @Benchmark
+    public int hashCode_Employee() {
+        return employee.hashCode();
+    }
+
+    @Benchmark
+    public int hashCode_Department() {
+        return employee.getDepartment().hashCode();
+    }
+}
@@ -0,0 +1,137 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.BaseEntity;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/* Сравнение проверки и заполнения null полей entity через EntityFieldPlan (Utils)
+ * с прежней реализацией на getDeclaredFields() и setAccessible(true) (методы reflective*) */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityFieldMergeBenchmark {
+
+    private Employee repoEmployee;
+    private Employee fullEmployee;
+
+    @Setup
+    public void setUp() {
+
+        var department = new Department();
+        department.setId(5);
+        department.setDepartmentName("SALES");
+        department.setMinSalary(850D);
+        department.setMaxSalary(5000D);
+
+        repoEmployee = new Employee();
+        repoEmployee.setId(7);
+        repoEmployee.setName("Ivan");
+        repoEmployee.setSurname("Sidorov");
+        repoEmployee.setBirthday(LocalDate.parse("1985-04-17"));
+        repoEmployee.setSalary(2000D);
+        repoEmployee.setDepartment(department);
+
+        fullEmployee = new Employee();
+        fullEmployee.setName("Ivan");
+        fullEmployee.setSurname("Sidorov");
+        fullEmployee.setBirthday(LocalDate.parse("1985-04-17"));
+        fullEmployee.setSalary(2000D);
+        fullEmployee.setDepartment(department);
+    }
+
+    // Как в PUT: в запросе указаны только id и name
+    private Employee partialEmployee() {
+        var employee = new Employee();
+        employee.setId(7);
+        employee.setName("Petr");
+        return employee;
+    }
+
+    @Benchmark
+    public Employee fillNullFields_Plan() {
+        var employee = partialEmployee();
+        Utils.checkEntityFieldsIfNullThenFill(employee, repoEmployee);
+        return employee;
+    }
+
+    @Benchmark
+    public Employee fillNullFields_Reflection() {
+        var employee = partialEmployee();
+        reflectiveCheckEntityFieldsIfNullThenFill(employee, repoEmployee);
+        return employee;
+    }
+
+    @Benchmark
+    public void checkNullFields_Plan(Blackhole blackhole) {
+        Utils.checkEntityFieldsIfNull(fullEmployee);
+        blackhole.consume(fullEmployee);
+    }
+
+    @Benchmark
+    public void checkNullFields_Reflection(Blackhole blackhole) {
+        reflectiveCheckEntityFieldsIfNull(fullEmployee);
+        blackhole.consume(fullEmployee);
+    }
+
+    // Прежняя реализация Utils.checkEntityFieldsIfNull
+    private static <T extends BaseEntity> void reflectiveCheckEntityFieldsIfNull(T entity) {
+
+        var entityFields = entity.getClass().getDeclaredFields();
+        var listOfNullFields = new StringBuilder();
+
+        for (Field field : entityFields) {
+
+            field.setAccessible(true);
+
+            if (!field.getType().isPrimitive()) {
+                try {
+                    if (field.get(entity) == null
+                            && !field.getName().equals("employee")) {
+
+                        listOfNullFields.append(field.getName()).append(", ");
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        if (!listOfNullFields.isEmpty()) {
+            throw new IncorrectFieldData("You missed the required field(s): "
+                    + listOfNullFields.substring(0, listOfNullFields.length()-2));
+        }
+    }
+
+    // Прежняя реализация Utils.checkEntityFieldsIfNullThenFill
+    private static <T extends BaseEntity> void reflectiveCheckEntityFieldsIfNullThenFill(T entity, T repoEntity) {
+
+        var entityFields = entity.getClass().getDeclaredFields();
+        var repoEntityFields = repoEntity.getClass().getDeclaredFields();
+
+        for (int i = 0; i < entityFields.length; i++) {
+            entityFields[i].setAccessible(true);
+            repoEntityFields[i].setAccessible(true);
+
+            if (!entityFields[i].getType().isPrimitive()) {
+                try {
+                    if (entityFields[i].get(entity) == null) {
+                        entityFields[i].set(entity, repoEntityFields[i].get(repoEntity));
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация и десериализация entity тем же образом, что и в MappingJackson2HttpMessageConverter
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityJsonBenchmark {
+
+    private ObjectWriter employeeWriter;
+    private ObjectReader employeeReader;
+    private ObjectWriter departmentWriter;
+    private ObjectReader departmentReader;
+
+    private Employee employee;
+    private Department department;
+    private byte[] employeeJson;
+    private byte[] departmentJson;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        employeeWriter = objectMapper.writerFor(Employee.class);
+        employeeReader = objectMapper.readerFor(Employee.class);
+        departmentWriter = objectMapper.writerFor(Department.class);
+        departmentReader = objectMapper.readerFor(Department.class);
+
+        department = new Department();
+        department.setId(5);
+        department.setDepartmentName("SALES");
+        department.setMinSalary(850D);
+        department.setMaxSalary(5000D);
+
+        employee = new Employee();
+        employee.setId(7);
+        employee.setName("Ivan");
+        employee.setSurname("Sidorov");
+        employee.setBirthday(LocalDate.parse("1985-04-17"));
+        employee.setSalary(2000D);
+        employee.setDepartment(department);
+
+        employeeJson = employeeWriter.writeValueAsBytes(employee);
+        departmentJson = departmentWriter.writeValueAsBytes(department);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws IOException {
+        return employeeWriter.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws IOException {
+        return employeeReader.readValue(employeeJson);
+    }
+
+    @Benchmark
+    public byte[] serializeDepartment() throws IOException {
+        return departmentWriter.writeValueAsBytes(department);
+    }
+
+    @Benchmark
+    public Department deserializeDepartment() throws IOException {
+        return departmentReader.readValue(departmentJson);
+    }
+}
@@ -0,0 +1,101 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.EntityGlobalExceptionHandler;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.ExceptionWrapper;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/* Ответ на частую ошибку клиента (пустой список, 404): создание и перехват исключения на глубине depth
+ * (запрос Spring MVC проходит через сотню кадров стека) и формирование тела ответа.
+ * withStackTrace* - исключение со стеком вызовов и сериализация ExceptionWrapper на каждый запрос, как было раньше;
+ * stackless* - исключения приложения без стека и готовое тело ответа из EntityGlobalExceptionHandler */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionHandlingBenchmark {
+
+    @Param({"20", "100"})
+    private int depth;
+
+    private MeterRegistry meterRegistry;
+    private ObjectWriter writer;
+    private EntityGlobalExceptionHandler handler;
+    private WebRequest request;
+
+    // Исключение в том виде, в каком оно было до отключения стека вызовов
+    private static final class StackTraceNotFoundException extends RuntimeException {
+
+        StackTraceNotFoundException() {
+            super(NoSuchEntityFoundInDBException.NO_ENTITIES_MESSAGE);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+
+        var objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        meterRegistry = new SimpleMeterRegistry();
+        writer = objectMapper.writer();
+        handler = new EntityGlobalExceptionHandler(meterRegistry, objectMapper);
+
+        var servletRequest = new MockHttpServletRequest();
+        servletRequest.addHeader("Accept", "application/json");
+        request = new ServletWebRequest(servletRequest);
+    }
+
+    private static void throwAt(int depth, boolean stackless) {
+
+        if (depth > 0) {
+            throwAt(depth - 1, stackless);
+            return;
+        }
+        throw stackless ? new NoSuchEntityFoundInDBException() : new StackTraceNotFoundException();
+    }
+
+    private static RuntimeException thrown(int depth, boolean stackless) {
+
+        try {
+            throwAt(depth, stackless);
+        } catch (RuntimeException e) {
+            return e;
+        }
+        throw new IllegalStateException();
+    }
+
+    @Benchmark
+    public RuntimeException withStackTraceThrow() {
+        return thrown(depth, false);
+    }
+
+    @Benchmark
+    public RuntimeException stacklessThrow() {
+        return thrown(depth, true);
+    }
+
+    @Benchmark
+    public byte[] withStackTraceResponse() throws Exception {
+
+        var exception = thrown(depth, false);
+
+        meterRegistry.counter("api.exceptions", "exception", exception.getClass().getSimpleName()).increment();
+        return writer.writeValueAsBytes(new ExceptionWrapper(exception.getMessage()));
+    }
+
+    @Benchmark
+    public Object stacklessResponse() {
+        return handler.handleException((NoSuchEntityFoundInDBException) thrown(depth, true), request).getBody();
+    }
+}
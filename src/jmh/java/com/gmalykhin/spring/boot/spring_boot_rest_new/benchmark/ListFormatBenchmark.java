@@ -0,0 +1,72 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.config.SmileConfig;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* Сериализация и десериализация списка EmployeeDTO (ответ /by-department и поиска по дате рождения)
+ * в JSON и в Smile тем же образом, что и в конвертерах Spring MVC (SmileConfig).
+ * Размер ответа каждого формата выводится при подготовке бенчмарка и попадает в вывод JMH */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListFormatBenchmark {
+
+    private static final int DEPARTMENTS = 50;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    @Param({"10000"})
+    private int employees;
+
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private List<EmployeeDTO> list;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        var builder = Jackson2ObjectMapperBuilder.json();
+        ObjectMapper objectMapper = "smile".equals(format)
+                ? builder.factory(SmileConfig.smileFactory()).build()
+                : builder.build();
+
+        var type = objectMapper.getTypeFactory().constructCollectionType(List.class, EmployeeDTO.class);
+        listWriter = objectMapper.writerFor(type);
+        listReader = objectMapper.readerFor(type);
+
+        list = new ArrayList<>(employees);
+        for (int i = 1; i <= employees; i++) {
+            list.add(new EmployeeDTO(i, "Name" + i % 500, "Surname" + i % 2000, 1000D + i % 4000 + 0.5,
+                    "DEPARTMENT_" + (char) ('A' + i % DEPARTMENTS / 26) + (char) ('A' + i % DEPARTMENTS % 26)));
+        }
+
+        payload = listWriter.writeValueAsBytes(list);
+        System.out.printf("%n%s: %d employees, %d bytes%n", format, employees, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployees() throws IOException {
+        return listWriter.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public void deserializeEmployees(Blackhole blackhole) throws IOException {
+        blackhole.consume(listReader.<List<EmployeeDTO>>readValue(payload));
+    }
+}
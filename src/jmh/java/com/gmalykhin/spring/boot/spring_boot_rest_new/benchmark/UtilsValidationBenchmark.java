@@ -0,0 +1,80 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.benchmark;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.FieldError;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Проверки из Utils, которые выполняются при каждом POST/PUT
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsValidationBenchmark {
+
+    private LocalDate validBirthday;
+    private LocalDate invalidBirthday;
+    private Department department;
+    private List<FieldError> fieldErrors;
+
+    @Setup
+    public void setUp() {
+
+        validBirthday = LocalDate.now().minusYears(30);
+        invalidBirthday = LocalDate.now().minusYears(16);
+
+        department = new Department();
+        department.setDepartmentName("SALES");
+        department.setMinSalary(850D);
+        department.setMaxSalary(5000D);
+
+        fieldErrors = List.of(
+                new FieldError("employee", "name", " The name field must contains only A-Z or a-z symbols "),
+                new FieldError("employee", "salary", " The salary field must have a min value of 500 "));
+    }
+
+    @Benchmark
+    public String initCap() {
+        return Utils.initCap("sIDOROV");
+    }
+
+    @Benchmark
+    public LocalDate checkBirthday_Valid() {
+        Utils.checkBirthday(validBirthday);
+        return validBirthday;
+    }
+
+    @Benchmark
+    public Object checkBirthday_Invalid() {
+        try {
+            Utils.checkBirthday(invalidBirthday);
+            return null;
+        } catch (IncorrectFieldData e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Department checkEmployeesSalary() {
+        Utils.checkEmployeesSalary(2000D, department);
+        return department;
+    }
+
+    @Benchmark
+    public Department checkDepartmentMinMaxSalary() {
+        Utils.checkDepartmentMinMaxSalary(department.getMinSalary(), department.getMaxSalary());
+        return department;
+    }
+
+    @Benchmark
+    public String errorsToString() {
+        return Utils.errorsToString(fieldErrors);
+    }
+}
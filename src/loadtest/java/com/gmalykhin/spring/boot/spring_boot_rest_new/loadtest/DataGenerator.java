@@ -0,0 +1,153 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/* Генератор синтетических данных для нагрузочного теста: departments департаментов и employees работников
+ * создаются через REST API запущенного приложения (POST /api/departments и POST /api/employees/bulk пачками),
+ * поэтому проходят те же проверки, что и обычные запросы:
+ * - имя департамента - только A-Z и _, 2-25 символов, уникальное;
+ * - диапазон зарплат департамента от 500 до 7000 (Utils.checkDepartmentMinMaxSalary);
+ * - имя и фамилия работника - только латинские буквы, 2-25 символов;
+ * - возраст работника от 18 до 60 лет (Utils.checkBirthday), зарплата - в диапазоне его департамента.
+ * Размеры департаментов неравномерны: первые департаменты больше остальных, как в реальной компании.
+ * Одинаковый seed дает одинаковые данные, имена департаментов разных seed не пересекаются.
+ * Аргументы: baseUrl departments employees [seed] */
+public class DataGenerator {
+
+    private static final int BULK_SIZE = 1000;
+
+    private static final String[] NAMES = {"Ivan", "Petr", "Anna", "Maria", "Oleg", "Elena", "Sergey", "Olga",
+            "Dmitry", "Irina", "Alexey", "Natalia", "Pavel", "Svetlana", "Nikolay", "Tatiana", "Andrey", "Yulia"};
+
+    private static final String[] SURNAMES = {"Ivanov", "Petrov", "Sidorov", "Smirnov", "Kuznetsov", "Popov",
+            "Vasiliev", "Sokolov", "Mikhailov", "Novikov", "Fedorov", "Morozov", "Volkov", "Alekseev", "Lebedev"};
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern IMPORTED = Pattern.compile("\"imported\":(\\d+),\"failed\":(\\d+)");
+
+    private final Random random;
+    private final String tag;
+    private final LocalDate today = LocalDate.now();
+
+    public DataGenerator(long seed) {
+        this.random = new Random(seed);
+        this.tag = letters(Math.floorMod(seed, 26L * 26 * 26), 3);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        var baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        var departments = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        var employees = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        var seed = args.length > 3 ? Long.parseLong(args[3]) : System.currentTimeMillis();
+
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        var generator = new DataGenerator(seed);
+        var start = System.nanoTime();
+
+        var bands = generator.createDepartments(client, baseUrl, departments);
+        var imported = generator.createEmployees(client, baseUrl, bands, employees);
+
+        System.out.printf("seed=%d departments=%d employees=%d failed=%d time=%.1f s%n", seed, bands.size(),
+                imported[0], imported[1], (System.nanoTime() - start) / 1e9);
+        System.exit(imported[1] == 0 ? 0 : 1);
+    }
+
+    private List<DepartmentBand> createDepartments(HttpClient client, String baseUrl, int count) throws Exception {
+
+        var bands = new ArrayList<DepartmentBand>(count);
+
+        for (int i = 0; i < count; i++) {
+            var minSalary = 500 + random.nextInt(400) * 100;
+            var maxSalary = minSalary + 500 + random.nextInt(66) * 100;
+            var json = "{\"departmentName\":\"LT_" + tag + "_" + letters(i, 4) + "\",\"minSalary\":" + minSalary
+                    + ",\"maxSalary\":" + maxSalary + "}";
+
+            var response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/departments"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+
+            var matcher = ID.matcher(response.body());
+
+            if (response.statusCode() != 201 || !matcher.find()) {
+                throw new IllegalStateException("Department was not created: " + response.statusCode() + " "
+                        + response.body());
+            }
+            bands.add(new DepartmentBand(Integer.parseInt(matcher.group(1)), minSalary, maxSalary));
+        }
+        return bands;
+    }
+
+    // Возвращает количество импортированных работников и количество записей с ошибкой
+    private int[] createEmployees(HttpClient client, String baseUrl, List<DepartmentBand> bands, int count)
+                                                                                                    throws Exception {
+        var result = new int[2];
+        var ndjson = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            ndjson.append(employeeJson(bands.get(skewedIndex(bands.size())))).append('\n');
+
+            if ((i + 1) % BULK_SIZE == 0 || i == count - 1) {
+                var response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/employees/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString())).build(),
+                        HttpResponse.BodyHandlers.ofString());
+
+                var matcher = IMPORTED.matcher(response.body());
+
+                if (response.statusCode() != 200 || !matcher.find()) {
+                    throw new IllegalStateException("Bulk import failed: " + response.statusCode() + " "
+                            + response.body());
+                }
+                result[0] += Integer.parseInt(matcher.group(1));
+                result[1] += Integer.parseInt(matcher.group(2));
+                ndjson.setLength(0);
+            }
+        }
+        return result;
+    }
+
+    private String employeeJson(DepartmentBand band) {
+
+        // Дата рождения строго внутри границ checkBirthday, с запасом в несколько дней на смену даты во время теста
+        var oldest = today.minusYears(60).plusDays(7);
+        var youngest = today.minusYears(18).minusDays(7);
+        var birthday = oldest.plusDays(random.nextInt((int) (youngest.toEpochDay() - oldest.toEpochDay())));
+        var salary = Math.round((band.minSalary() + random.nextDouble() * (band.maxSalary() - band.minSalary())) * 100)
+                / 100.0;
+
+        return "{\"name\":\"" + NAMES[random.nextInt(NAMES.length)] + "\",\"surname\":\""
+                + SURNAMES[random.nextInt(SURNAMES.length)] + "\",\"birthday\":\"" + birthday + "\",\"salary\":"
+                + salary + ",\"department\":{\"id\":" + band.id() + "}}";
+    }
+
+    // Индекс в диапазоне 0..size-1 с убывающей вероятностью: u^2 чаще попадает в начало диапазона
+    private int skewedIndex(int size) {
+        var u = random.nextDouble();
+        return Math.min(size - 1, (int) (u * u * size));
+    }
+
+    // Число в виде букв A-Z фиксированной длины: имена департаментов могут содержать только буквы и _
+    private static String letters(long value, int length) {
+
+        var chars = new char[length];
+
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = (char) ('A' + value % 26);
+            value /= 26;
+        }
+        return new String(chars);
+    }
+
+    private record DepartmentBand(int id, int minSalary, int maxSalary) {
+    }
+}
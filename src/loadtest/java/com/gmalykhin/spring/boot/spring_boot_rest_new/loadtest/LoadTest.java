@@ -0,0 +1,293 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/* Нагрузочный тест запущенного приложения: concurrency клиентов в замкнутом цикле отправляют запросы
+ * сценария scenario в течение durationSeconds. Первые warmupSeconds не учитываются.
+ * Для каждого endpoint и для всех запросов вместе выводятся количество запросов, пропускная способность,
+ * ответы 4xx, ошибки (5xx и ошибки соединения), p50, p99 и максимальная задержка.
+ * Сценарии (Scenario):
+ * - read - чтение работника по id, страницы работников и средней зарплаты. Для сравнения режимов запускается
+ *   против одного и того же набора данных дважды: с платформенными потоками и с профилем virtual-threads;
+ * - mixed - чтение, поиск по дате рождения, изменение диапазонов зарплат департаментов с приведением зарплат
+ *   работников и отчеты (статистика зарплат, выгрузка CSV);
+ * - write - то же, но с большей долей изменений департаментов.
+ * Данные создаются заранее генератором DataGenerator.
+ * Аргументы: baseUrl concurrency durationSeconds [warmupSeconds] [scenario] */
+public class LoadTest {
+
+    private static final Pattern EMPLOYEE_ID = Pattern.compile("\\{\"id\":(\\d+),\"name\"");
+    private static final Pattern DEPARTMENT_ID = Pattern.compile("\\{\"id\":(\\d+),\"departmentName\"");
+
+    public static void main(String[] args) throws Exception {
+
+        var baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        var concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        var durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        var warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        var scenario = args.length > 4 ? Scenario.valueOf(args[4].toUpperCase()) : Scenario.READ;
+
+        var client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        var data = new TestData(loadIds(client, baseUrl + "/api/employees?limit=1000", EMPLOYEE_ID),
+                loadIds(client, baseUrl + "/api/departments", DEPARTMENT_ID));
+
+        if (data.employeeIds().length == 0 || data.departmentIds().length == 0) {
+            throw new IllegalStateException("There are no employees in DB, fill it with DataGenerator "
+                    + "before the load test");
+        }
+
+        var start = System.nanoTime();
+        var measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        var end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        var results = new ArrayList<Future<Map<String, EndpointStats>>>(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            results.add(workers.submit(() -> runWorker(client, baseUrl, scenario, data, measureFrom, end)));
+        }
+
+        var byEndpoint = new TreeMap<String, EndpointStats>();
+
+        for (var result : results) {
+            result.get().forEach((endpoint, stats) ->
+                    byEndpoint.computeIfAbsent(endpoint, e -> new EndpointStats()).merge(stats));
+        }
+        workers.shutdown();
+
+        var total = new EndpointStats();
+        byEndpoint.values().forEach(total::merge);
+
+        System.out.printf("scenario=%s concurrency=%d duration=%ds employees=%d departments=%d%n",
+                scenario.name().toLowerCase(), concurrency, durationSeconds, data.employeeIds().length,
+                data.departmentIds().length);
+        System.out.printf("%-58s %9s %9s %7s %7s %7s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "4xx", "errors", "error%", "p50 ms", "p99 ms", "max ms");
+        byEndpoint.forEach((endpoint, stats) -> stats.print(endpoint, durationSeconds));
+        total.print("total", durationSeconds);
+        System.exit(0);
+    }
+
+    private static Map<String, EndpointStats> runWorker(HttpClient client, String baseUrl, Scenario scenario,
+                                                        TestData data, long measureFrom, long end) {
+
+        var stats = new TreeMap<String, EndpointStats>();
+        var random = ThreadLocalRandom.current();
+
+        while (true) {
+            var requestStart = System.nanoTime();
+
+            if (requestStart >= end) {
+                break;
+            }
+
+            var operation = scenario.next(random);
+            var status = 0;
+
+            try {
+                var response = client.send(operation.request(baseUrl, data, random),
+                        HttpResponse.BodyHandlers.discarding());
+                status = response.statusCode();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            if (requestStart >= measureFrom) {
+                stats.computeIfAbsent(operation.endpoint(), endpoint -> new EndpointStats())
+                        .add(System.nanoTime() - requestStart, status);
+            }
+        }
+        return stats;
+    }
+
+    private static int[] loadIds(HttpClient client, String url, Pattern idPattern) throws Exception {
+
+        var body = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+
+        List<Integer> ids = new ArrayList<>();
+        var matcher = idPattern.matcher(body);
+
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static HttpRequest get(String baseUrl, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private static int randomId(int[] ids, ThreadLocalRandom random) {
+        return ids[random.nextInt(ids.length)];
+    }
+
+    // Новый диапазон зарплат по правилам Utils.checkDepartmentMinMaxSalary: зарплаты вне него будут приведены к границам
+    private static HttpRequest putSalaryBand(String baseUrl, TestData data, ThreadLocalRandom random) {
+
+        var minSalary = 500 + random.nextInt(400) * 100;
+        var maxSalary = minSalary + 500 + random.nextInt(66) * 100;
+        var json = "{\"id\":" + randomId(data.departmentIds(), random) + ",\"minSalary\":" + minSalary
+                + ",\"maxSalary\":" + maxSalary + "}";
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/departments"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    // Работники, рожденные в случайный год из допустимого диапазона возрастов
+    private static HttpRequest searchByBirthday(String baseUrl, ThreadLocalRandom random) {
+
+        var from = LocalDate.now().minusYears(18 + random.nextInt(42)).withDayOfYear(1);
+
+        return get(baseUrl, "/api/employees/search-for-employees-born-in/" + from + "/" + from.plusYears(1));
+    }
+
+    private enum Operation {
+        EMPLOYEE_BY_ID("GET /api/employees/{id}"),
+        EMPLOYEES_PAGE("GET /api/employees?after&limit=50"),
+        DEPARTMENT_EMPLOYEES_PAGE("GET /api/departments/{id}/employees?limit=50"),
+        DEPARTMENTS("GET /api/departments"),
+        AVERAGE_SALARY("GET /api/departments/average-salary-by-department"),
+        SEARCH_BY_BIRTHDAY("GET /api/employees/search-for-employees-born-in/{from}/{to}"),
+        UPDATE_SALARY_BAND("PUT /api/departments (salary clamp)"),
+        SALARY_STATS("GET /api/departments/salary-stats"),
+        EXPORT_CSV("GET /api/employees/export?format=csv");
+
+        private final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        String endpoint() {
+            return endpoint;
+        }
+
+        HttpRequest request(String baseUrl, TestData data, ThreadLocalRandom random) {
+            return switch (this) {
+                case EMPLOYEE_BY_ID -> get(baseUrl, "/api/employees/" + randomId(data.employeeIds(), random));
+                case EMPLOYEES_PAGE -> get(baseUrl, "/api/employees?limit=50&after="
+                        + randomId(data.employeeIds(), random));
+                case DEPARTMENT_EMPLOYEES_PAGE -> get(baseUrl, "/api/departments/"
+                        + randomId(data.departmentIds(), random) + "/employees?limit=50");
+                case DEPARTMENTS -> get(baseUrl, "/api/departments");
+                case AVERAGE_SALARY -> get(baseUrl, "/api/departments/average-salary-by-department");
+                case SEARCH_BY_BIRTHDAY -> searchByBirthday(baseUrl, random);
+                case UPDATE_SALARY_BAND -> putSalaryBand(baseUrl, data, random);
+                case SALARY_STATS -> get(baseUrl, "/api/departments/salary-stats");
+                case EXPORT_CSV -> get(baseUrl, "/api/employees/export?format=csv");
+            };
+        }
+    }
+
+    // Доли запросов каждого вида в процентах, сумма - 100
+    private enum Scenario {
+        READ(Map.of(Operation.EMPLOYEE_BY_ID, 70, Operation.EMPLOYEES_PAGE, 20, Operation.AVERAGE_SALARY, 10)),
+        MIXED(Map.of(Operation.EMPLOYEE_BY_ID, 30, Operation.EMPLOYEES_PAGE, 10,
+                Operation.DEPARTMENT_EMPLOYEES_PAGE, 10, Operation.DEPARTMENTS, 5, Operation.AVERAGE_SALARY, 5,
+                Operation.SEARCH_BY_BIRTHDAY, 20, Operation.UPDATE_SALARY_BAND, 10, Operation.SALARY_STATS, 9,
+                Operation.EXPORT_CSV, 1)),
+        WRITE(Map.of(Operation.EMPLOYEE_BY_ID, 20, Operation.DEPARTMENT_EMPLOYEES_PAGE, 10,
+                Operation.AVERAGE_SALARY, 10, Operation.SEARCH_BY_BIRTHDAY, 10, Operation.UPDATE_SALARY_BAND, 40,
+                Operation.SALARY_STATS, 10));
+
+        private final Operation[] operations = new Operation[100];
+
+        Scenario(Map<Operation, Integer> weights) {
+
+            var index = 0;
+
+            for (var operation : Operation.values()) {
+                for (int i = 0; i < weights.getOrDefault(operation, 0); i++) {
+                    operations[index++] = operation;
+                }
+            }
+            if (index != operations.length) {
+                throw new IllegalArgumentException("The weights of the scenario must add up to 100");
+            }
+        }
+
+        Operation next(ThreadLocalRandom random) {
+            return operations[random.nextInt(operations.length)];
+        }
+    }
+
+    private static final class EndpointStats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long clientErrors;
+        private long errors;
+
+        // status 0 - ответ не получен (ошибка соединения, таймаут)
+        void add(long latency, int status) {
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+
+            if (status == 0 || status >= 500) {
+                errors++;
+            } else if (status >= 400) {
+                // 404 - пустая страница или поиск без результатов, 409/412 - одновременное изменение департамента
+                clientErrors++;
+            }
+        }
+
+        void merge(EndpointStats other) {
+
+            latencies = Arrays.copyOf(latencies, count + other.count);
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            clientErrors += other.clientErrors;
+            errors += other.errors;
+        }
+
+        void print(String endpoint, int durationSeconds) {
+
+            var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+
+            System.out.printf("%-58s %9d %9.1f %7d %7d %7.2f %9.2f %9.2f %9.2f%n", endpoint, count,
+                    (double) count / durationSeconds, clientErrors, errors, count == 0 ? 0 : 100.0 * errors / count,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sortedLatencies, double percentile) {
+
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            var index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private record TestData(int[] employeeIds, int[] departmentIds) {
+    }
+}
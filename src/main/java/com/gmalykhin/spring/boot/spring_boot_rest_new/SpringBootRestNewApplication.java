@@ -2,8 +2,10 @@ package com.gmalykhin.spring.boot.spring_boot_rest_new;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SpringBootRestNewApplication {
 
     public static void main(String[] args) {
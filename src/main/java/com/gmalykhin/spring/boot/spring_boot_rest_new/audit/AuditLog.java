@@ -0,0 +1,153 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/* Журнал изменений работников и департаментов: файл NDJSON (одно событие ChangeEvent в строке), только дозапись.
+ * MyServiceImpl публикует события после коммита в очередь без блокировок (ConcurrentLinkedQueue),
+ * размер которой ограничен счетчиком. Запись в файл выполняется в фоне пачками по BATCH_SIZE
+ * каждые audit.flush-interval, поэтому запрос не ждет записи на диск.
+ * Если очередь заполнена, публикующий поток ждет освобождения места не дольше audit.offer-timeout,
+ * после чего событие отбрасывается (метрика audit.events.dropped).
+ * Событие удаляется из очереди только после успешной записи: при ошибке записи пачка повторяется
+ * при следующем сбросе, и часть строк пачки может оказаться в файле дважды.
+ * Путь audit.file задается в application.properties без значения по умолчанию: каталог файла создается
+ * при запуске, и если в него нельзя писать, приложение не запускается */
+@Component
+public class AuditLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditLog.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private final Queue<ChangeEvent> queue = new ConcurrentLinkedQueue<>();
+    // Событий в очереди и в еще не записанной пачке
+    private final AtomicInteger size = new AtomicInteger();
+    private final List<ChangeEvent> batch = new ArrayList<>(BATCH_SIZE);
+
+    private final Path file;
+    private final int capacity;
+    private final long offerTimeoutNanos;
+    private final ObjectWriter writer;
+    private final Counter written;
+    private final Counter dropped;
+
+    @Autowired
+    public AuditLog(@Value("${audit.file}") Path file,
+                    @Value("${audit.queue-capacity:10000}") int capacity,
+                    @Value("${audit.offer-timeout:PT0.05S}") Duration offerTimeout,
+                    ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        checkWritable(file);
+        this.file = file;
+        this.capacity = capacity;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.writer = objectMapper.writerFor(ChangeEvent.class);
+        this.written = meterRegistry.counter("audit.events.written");
+        this.dropped = meterRegistry.counter("audit.events.dropped");
+        meterRegistry.gauge("audit.queue.size", size);
+    }
+
+    private static void checkWritable(Path file) {
+
+        var directory = file.toAbsolutePath().getParent();
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not create the audit log directory " + directory, e);
+        }
+        if (!Files.isWritable(directory) || Files.exists(file) && !Files.isWritable(file)) {
+            throw new IllegalStateException("The audit log file " + file.toAbsolutePath() + " is not writable");
+        }
+    }
+
+    public boolean publish(ChangeEvent event) {
+
+        var deadline = System.nanoTime() + offerTimeoutNanos;
+
+        while (true) {
+            var current = size.get();
+
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) {
+                    queue.offer(event);
+                    return true;
+                }
+            } else if (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else {
+                dropped.increment();
+                return false;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.flush-interval:PT0.2S}")
+    public synchronized void flush() {
+
+        if (batch.isEmpty() && queue.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (var out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+
+                while (true) {
+                    if (batch.isEmpty()) {
+                        ChangeEvent event;
+                        while (batch.size() < BATCH_SIZE && (event = queue.poll()) != null) {
+                            batch.add(event);
+                        }
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+
+                    for (var event : batch) {
+                        out.write(writer.writeValueAsString(event));
+                        out.newLine();
+                    }
+                    out.flush();
+
+                    written.increment(batch.size());
+                    size.addAndGet(-batch.size());
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write the audit log to {}, {} events will be retried", file, size.get(), e);
+        }
+    }
+
+    // Оставшиеся в очереди события записываются при остановке приложения
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+}
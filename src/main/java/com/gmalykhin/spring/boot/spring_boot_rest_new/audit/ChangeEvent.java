@@ -0,0 +1,54 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.audit;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Событие журнала изменений. Значения полей копируются при создании события,
+ * т.к. entity после коммита может измениться до того, как событие будет записано в журнал */
+public record ChangeEvent(Instant time, String entity, Action action, int id, Map<String, Object> values) {
+
+    public enum Action {
+        CREATE, UPDATE, DELETE, SALARY_CLAMP
+    }
+
+    public static ChangeEvent employee(Action action, Employee employee) {
+
+        var values = new LinkedHashMap<String, Object>();
+        values.put("name", employee.getName());
+        values.put("surname", employee.getSurname());
+        values.put("birthday", employee.getBirthday());
+        values.put("salary", employee.getSalary());
+        values.put("departmentId", employee.getDepartment() == null ? null : employee.getDepartment().getId());
+
+        return new ChangeEvent(Instant.now(), "employee", action, employee.getId(), values);
+    }
+
+    public static ChangeEvent department(Action action, Department department) {
+
+        var values = new LinkedHashMap<String, Object>();
+        values.put("departmentName", department.getDepartmentName());
+        values.put("minSalary", department.getMinSalary());
+        values.put("maxSalary", department.getMaxSalary());
+
+        return new ChangeEvent(Instant.now(), "department", action, department.getId(), values);
+    }
+
+    public static ChangeEvent deleted(String entity, int id) {
+        return new ChangeEvent(Instant.now(), entity, Action.DELETE, id, Map.of());
+    }
+
+    // Зарплаты работников департамента приведены к диапазону minSalary - maxSalary
+    public static ChangeEvent salaryClamp(Department department, int employeeCount) {
+
+        var values = new LinkedHashMap<String, Object>();
+        values.put("minSalary", department.getMinSalary());
+        values.put("maxSalary", department.getMaxSalary());
+        values.put("employeeCount", employeeCount);
+
+        return new ChangeEvent(Instant.now(), "department", Action.SALARY_CLAMP, department.getId(), values);
+    }
+}
@@ -0,0 +1,152 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CacheStatisticsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/* Кэш департаментов перед DepartmentRepository: по id и по имени департамента.
+ * Таблица departments маленькая и меняется редко, а читается при каждом POST/PUT работника.
+ * Размер каждого индекса ограничен capacity, при переполнении вытесняется давно не использованный элемент (LRU).
+ * В кэше хранятся копии, и наружу тоже отдаются копии, поэтому изменение полученного департамента не портит кэш.
+ * При любом изменении департаментов кэш полностью сбрасывается (invalidateAll).
+ * Кэш локальный для каждого экземпляра приложения: изменения, сделанные другим экземпляром (или напрямую в БД),
+ * сбросом не видны, поэтому каждый элемент живет не дольше ttl после загрузки из БД (expire-after-write) */
+@Component
+public class DepartmentCache {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final Map<Integer, Entry<Department>> byId;
+    // Optional.empty() - закэшированный факт отсутствия департамента с таким именем
+    private final Map<String, Entry<Optional<Department>>> byName;
+
+    // Увеличивается при каждом сбросе, чтобы не положить в кэш значение, прочитанное из БД до сброса
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // expiresAt - значение System.nanoTime(), после которого элемент считается устаревшим
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    @Autowired
+    public DepartmentCache(@Value("${department-cache.capacity:256}") int capacity,
+                           @Value("${department-cache.ttl:PT1M}") Duration ttl) {
+        this(capacity, ttl, System::nanoTime);
+    }
+
+    DepartmentCache(int capacity, Duration ttl, LongSupplier nanoTime) {
+        this.capacity = capacity;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.byId = lruMap();
+        this.byName = lruMap();
+    }
+
+    public Optional<Department> getById(int id, IntFunction<Optional<Department>> loader) {
+
+        long loadGeneration;
+        synchronized (this) {
+            var cached = fresh(byId, id);
+            if (cached != null) {
+                hits++;
+                return Optional.of(copyOf(cached.value()));
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        var loaded = loader.apply(id);
+
+        synchronized (this) {
+            if (loadGeneration == generation && loaded.isPresent()) {
+                byId.put(id, new Entry<>(copyOf(loaded.get()), nanoTime.getAsLong() + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    public Optional<Department> getByName(String departmentName, Function<String, Department> loader) {
+
+        long loadGeneration;
+        synchronized (this) {
+            var cached = fresh(byName, departmentName);
+            if (cached != null) {
+                hits++;
+                return cached.value().map(DepartmentCache::copyOf);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        var loaded = Optional.ofNullable(loader.apply(departmentName));
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                byName.put(departmentName, new Entry<>(loaded.map(DepartmentCache::copyOf),
+                        nanoTime.getAsLong() + ttlNanos));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        byId.clear();
+        byName.clear();
+    }
+
+    public synchronized CacheStatisticsDTO getStatistics() {
+        return new CacheStatisticsDTO(hits, misses, evictions, byId.size() + byName.size(), 2 * capacity);
+    }
+
+    // Элемент с истекшим ttl удаляется, как будто его не было в кэше
+    private <K, V> Entry<V> fresh(Map<K, Entry<V>> map, K key) {
+
+        var cached = map.get(key);
+
+        if (cached != null && nanoTime.getAsLong() - cached.expiresAt() >= 0) {
+            map.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private <K, V> Map<K, V> lruMap() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static Department copyOf(Department department) {
+
+        var copy = new Department();
+
+        copy.setId(department.getId());
+        copy.setDepartmentName(department.getDepartmentName());
+        copy.setMinSalary(department.getMinSalary());
+        copy.setMaxSalary(department.getMaxSalary());
+        copy.setVersion(department.getVersion());
+
+        return copy;
+    }
+}
@@ -0,0 +1,118 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryTotalsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.DepartmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Материализованная средняя зарплата по департаментам: для каждого департамента в памяти хранятся
+ * сумма зарплат и количество работников, которые MyServiceImpl изменяет после сохранения и удаления работников.
+ * Чтение средней зарплаты - проход по департаментам без запроса к БД.
+ * Изменения, сделанные в обход сервиса (или совпавшие по времени с перечитыванием), исправляются
+ * периодической сверкой с БД (reconcile), интервал задается свойством salary-aggregate.reconcile-interval.
+ * Версия (getVersion) увеличивается после каждого изменения, по ней ResponseBodyCache определяет устаревший ответ.
+ * Читатель получает версию до данных, поэтому ответ, прочитанный во время изменения, сохраняется со старой версией */
+@Component
+public class DepartmentSalaryAggregate {
+
+    private final DepartmentRepository departmentRepository;
+    private final Map<Integer, Totals> totals = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    // До первой сверки в памяти нет данных, и изменения не применяются
+    private volatile boolean loaded;
+
+    @Autowired
+    public DepartmentSalaryAggregate(DepartmentRepository departmentRepository) {
+        this.departmentRepository = departmentRepository;
+    }
+
+    public List<AverageSalaryByDepartmentDTO> getAverageSalaryByDepartment() {
+
+        if (!loaded) {
+            reconcile();
+        }
+        return totals.values().stream()
+                .filter(t -> t.employeeCount() > 0)
+                .sorted(Comparator.comparing(Totals::departmentName))
+                .map(t -> new AverageSalaryByDepartmentDTO(t.departmentName(), t.salarySum() / t.employeeCount()))
+                .toList();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void addEmployee(int departmentId, String departmentName, double salary) {
+        if (loaded) {
+            totals.merge(departmentId, new Totals(departmentName, salary, 1),
+                    (current, added) -> new Totals(current.departmentName(),
+                            current.salarySum() + salary, current.employeeCount() + 1));
+            version.incrementAndGet();
+        }
+    }
+
+    public void removeEmployee(int departmentId, double salary) {
+        totals.computeIfPresent(departmentId, (id, current) -> current.employeeCount() <= 1
+                // Без работников сумма обнуляется, чтобы не накапливать погрешность double
+                ? new Totals(current.departmentName(), 0, 0)
+                : new Totals(current.departmentName(), current.salarySum() - salary, current.employeeCount() - 1));
+        version.incrementAndGet();
+    }
+
+    public void renameDepartment(int departmentId, String departmentName) {
+        totals.computeIfPresent(departmentId,
+                (id, current) -> new Totals(departmentName, current.salarySum(), current.employeeCount()));
+        version.incrementAndGet();
+    }
+
+    public void removeDepartment(int departmentId) {
+        totals.remove(departmentId);
+        version.incrementAndGet();
+    }
+
+    // Перечитывание одного департамента, например после UPDATE зарплат всех его работников
+    public void reloadDepartment(int departmentId) {
+        if (loaded) {
+            var fresh = departmentRepository.getSalaryTotals(departmentId);
+
+            if (fresh == null) {
+                totals.remove(departmentId);
+            } else {
+                totals.put(departmentId, Totals.of(fresh));
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${salary-aggregate.reconcile-interval:PT5M}",
+            initialDelayString = "${salary-aggregate.reconcile-interval:PT5M}")
+    public void reconcile() {
+
+        var fresh = new HashMap<Integer, Totals>();
+
+        for (var departmentTotals : departmentRepository.getSalaryTotalsByDepartment()) {
+            fresh.put(departmentTotals.departmentId(), Totals.of(departmentTotals));
+        }
+        totals.keySet().retainAll(fresh.keySet());
+        totals.putAll(fresh);
+        loaded = true;
+        version.incrementAndGet();
+    }
+
+    private record Totals(String departmentName, double salarySum, long employeeCount) {
+
+        private static Totals of(DepartmentSalaryTotalsDTO dto) {
+            return new Totals(dto.departmentName(), dto.salarySum(), dto.employeeCount());
+        }
+    }
+}
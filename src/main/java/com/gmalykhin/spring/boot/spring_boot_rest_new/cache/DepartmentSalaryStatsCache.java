@@ -0,0 +1,86 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.SalaryStatsRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.SalaryHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/* Кэш статистики зарплат по департаментам (SalaryHistogram): статистика департамента хранится,
+ * пока MyServiceImpl не сообщит о записи работника этого департамента или об изменении самого департамента (invalidate).
+ * Статистика всех департаментов считается одним запросом и кэшируется целиком до любого такого изменения.
+ * Количество интервалов гистограммы задается свойством salary-stats.buckets */
+@Component
+public class DepartmentSalaryStatsCache {
+
+    private final SalaryStatsRepository salaryStatsRepository;
+    private final int bucketCount;
+    private final Map<Integer, DepartmentSalaryStatsDTO> byDepartment = new HashMap<>();
+    private List<DepartmentSalaryStatsDTO> allDepartments;
+
+    // Увеличивается при каждом сбросе, чтобы не положить в кэш статистику, посчитанную до сброса
+    private long generation;
+
+    @Autowired
+    public DepartmentSalaryStatsCache(SalaryStatsRepository salaryStatsRepository,
+                                      @Value("${salary-stats.buckets:20}") int bucketCount) {
+        this.salaryStatsRepository = salaryStatsRepository;
+        this.bucketCount = bucketCount;
+    }
+
+    public Optional<DepartmentSalaryStatsDTO> getStats(int departmentId) {
+
+        long loadGeneration;
+        synchronized (this) {
+            var cached = byDepartment.get(departmentId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+
+        var loaded = salaryStatsRepository.getSalaryHistogram(departmentId, bucketCount).map(SalaryHistogram::toDTO);
+
+        synchronized (this) {
+            if (loadGeneration == generation && loaded.isPresent()) {
+                byDepartment.put(departmentId, loaded.get());
+            }
+        }
+        return loaded;
+    }
+
+    public List<DepartmentSalaryStatsDTO> getAllStats() {
+
+        long loadGeneration;
+        synchronized (this) {
+            if (allDepartments != null) {
+                return allDepartments;
+            }
+            loadGeneration = generation;
+        }
+
+        var loaded = salaryStatsRepository.getSalaryHistograms(bucketCount).stream()
+                .map(SalaryHistogram::toDTO)
+                .toList();
+
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                allDepartments = loaded;
+                loaded.forEach(stats -> byDepartment.put(stats.departmentId(), stats));
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void invalidate(int departmentId) {
+        generation++;
+        byDepartment.remove(departmentId);
+        allDepartments = null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/* Кэш уже сериализованных в JSON ответов небольших, редко меняющихся GET запросов
+ * (список департаментов, средняя зарплата по департаментам). Для каждого ответа хранятся байты JSON
+ * и их сжатая gzip копия (если JSON не меньше response-cache.gzip-min-size), поэтому повторный запрос -
+ * копирование байтов в ответ без загрузки entity и без работы Jackson.
+ * Ответ хранится вместе с версией данных (счетчики TableVersions или версия DepartmentSalaryAggregate),
+ * которую вызывающий код получает до чтения данных: после записи через MyService версия меняется,
+ * и ответ сериализуется заново при следующем запросе */
+@Component
+public class ResponseBodyCache {
+
+    private final ObjectWriter writer;
+    private final int gzipMinSize;
+    private final Map<String, CachedBody> bodies = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public ResponseBodyCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${response-cache.gzip-min-size:256}") int gzipMinSize) {
+        this.writer = objectMapper.writer();
+        this.gzipMinSize = gzipMinSize;
+        this.hits = meterRegistry.counter("response.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("response.cache.requests", "result", "miss");
+    }
+
+    // Одновременные запросы после изменения данных могут сериализовать ответ несколько раз, в кэше остается последний
+    public CachedBody get(String name, String versionTag, Supplier<?> body) {
+
+        var cached = bodies.get(name);
+
+        if (cached != null && cached.versionTag().equals(versionTag)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        try {
+            var json = writer.writeValueAsBytes(body.get());
+            cached = new CachedBody(versionTag, json, json.length < gzipMinSize ? null : gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        bodies.put(name, cached);
+        return cached;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+
+        var out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // gzip - null, если JSON слишком мал, чтобы его сжимать
+    public record CachedBody(String versionTag, byte[] json, byte[] gzip) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Счетчики изменений таблиц employees и departments для ETag ответов со списками.
+ * MyServiceImpl увеличивает счетчик таблицы до изменения и еще раз после коммита, поэтому ответ,
+ * прочитанный во время изменения, не получит тот же ETag, что и ответ с уже измененными данными.
+ * Время запуска приложения входит в ETag, чтобы после перезапуска (счетчики с нуля) старые ETag не совпадали.
+ * Счетчики хранятся в памяти одного экземпляра приложения и не видят изменений, сделанных в обход сервиса */
+@Component
+public class TableVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong employees = new AtomicLong();
+    private final AtomicLong departments = new AtomicLong();
+
+    public void employeesChanged() {
+        employees.incrementAndGet();
+    }
+
+    public void departmentsChanged() {
+        departments.incrementAndGet();
+    }
+
+    // В JSON работников входит название департамента, поэтому учитываются изменения обеих таблиц
+    public String getEmployeesTag() {
+        return epoch + "-e" + employees.get() + "-d" + departments.get();
+    }
+
+    public String getDepartmentsTag() {
+        return epoch + "-d" + departments.get();
+    }
+}
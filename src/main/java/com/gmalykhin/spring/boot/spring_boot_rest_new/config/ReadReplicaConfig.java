@@ -0,0 +1,79 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Чтение с реплик БД: включается свойством app.datasource.replica-urls (адреса JDBC реплик через запятую).
+ * Основной пул настраивается как обычно (spring.datasource.*, spring.datasource.hikari.*),
+ * пулы реплик получают те же настройки Hikari и свои адреса, имя пользователя и пароль
+ * (app.datasource.replica-username и replica-password, по умолчанию как у основной БД).
+ * Без свойства app.datasource.replica-urls используется DataSource Spring Boot по умолчанию */
+@Configuration
+@ConditionalOnProperty("app.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+                              @Value("${app.datasource.replica-urls}") List<String> replicaUrls,
+                              @Value("${app.datasource.replica-username:}") String replicaUsername,
+                              @Value("${app.datasource.replica-password:}") String replicaPassword,
+                              @Value("${app.datasource.read-your-writes-window:PT2S}") Duration readYourWritesWindow) {
+
+        var replicas = new ArrayList<HikariDataSource>();
+
+        for (var url : replicaUrls) {
+            var replica = new HikariDataSource();
+
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(StringUtils.hasText(replicaUsername) ? replicaUsername : properties.determineUsername());
+            replica.setPassword(StringUtils.hasText(replicaUsername) ? replicaPassword : properties.determinePassword());
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWritesWindow);
+    }
+
+    /* Пул выбирается при первом SQL запросе транзакции, а не при ее начале:
+     * к этому моменту TransactionSynchronizationManager уже знает, что транзакция только для чтения */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /* По умолчанию сессия Hibernate держит соединение до своего закрытия, а с open-in-view сессия живет весь запрос:
+     * соединение реплики, взятое транзакцией чтения, досталось бы следующей в том же запросе пишущей транзакции.
+     * Соединение возвращается в пул после каждой транзакции, и каждая транзакция выбирает пул заново */
+    @Bean
+    public HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,98 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Выбор пула соединений для каждого нового соединения: транзакции только для чтения (readOnly = true) получают
+ * соединение одной из реплик по очереди, все остальные - соединение основной БД.
+ * Read-your-writes: после каждой пишущей транзакции все чтения в течение readYourWritesWindow идут в основную БД,
+ * поэтому сразу после изменения клиент и кэши приложения (DepartmentCache, ResponseBodyCache,
+ * DepartmentSalaryAggregate и т.д.) не прочитают с реплики еще не доехавшие данные.
+ * Окно должно быть больше обычного отставания реплик. Окно общее для всего приложения, а не для одного клиента,
+ * т.к. кэши приложения общие для всех клиентов.
+ * Используется через LazyConnectionDataSourceProxy (ReadReplicaConfig): соединение берется при первом запросе к БД,
+ * когда признак readOnly транзакции уже установлен */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final long readYourWritesWindowNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicLong readsPinnedUntil;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Duration readYourWritesWindow) {
+        this.replicas = replicas;
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.readsPinnedUntil = new AtomicLong(System.nanoTime());
+
+        var targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, primary);
+
+        for (var replica : replicas) {
+            replicaKeys.add(replica.getPoolName());
+            targets.put(replica.getPoolName(), replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaKeys.isEmpty() || System.nanoTime() - readsPinnedUntil.get() < 0) {
+                return PRIMARY;
+            }
+            return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            pinReadsToPrimary();
+
+            // Окно отсчитывается еще раз от момента коммита, до вызовов afterCommit, которые могут читать данные
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void beforeCompletion() {
+                        pinReadsToPrimary();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        pinReadsToPrimary();
+                    }
+                });
+            }
+        }
+        return PRIMARY;
+    }
+
+    private void pinReadsToPrimary() {
+        readsPinnedUntil.accumulateAndGet(System.nanoTime() + readYourWritesWindowNanos,
+                (current, pinned) -> pinned - current > 0 ? pinned : current);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
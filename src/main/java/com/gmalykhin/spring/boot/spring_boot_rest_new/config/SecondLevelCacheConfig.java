@@ -0,0 +1,32 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/* CacheManager кэша второго уровня Hibernate с регионами из ehcache.xml.
+ * Hibernate сам берет у JCache CacheManager по адресу файла настроек, но такой CacheManager один на всю JVM:
+ * несколько контекстов Spring в одной JVM (например, тестовые контексты с разными БД) делили бы одни регионы
+ * и видели бы департаменты друг друга. Поэтому у каждой SessionFactory свой CacheManager,
+ * Hibernate закрывает его вместе с SessionFactory */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer() {
+        return properties -> {
+            var provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+            var configuration = new XmlConfiguration(SecondLevelCacheConfig.class.getResource("/ehcache.xml"));
+
+            properties.put(ConfigSettings.CACHE_MANAGER,
+                    provider.getCacheManager(URI.create("urn:second-level-cache:" + UUID.randomUUID()), configuration));
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/* Ответы в формате Smile (бинарный JSON) для внутренних клиентов: по заголовку Accept: application/x-jackson-smile
+ * любой ответ контроллера (списки /by-department, поиск по дате рождения, /average-salary-by-department и т.д.)
+ * сериализуется тем же ObjectMapper с настройками Spring Boot, но в Smile.
+ * Повторяющиеся короткие строки (departmentName, имена) записываются один раз, а дальше - ссылкой на первое вхождение.
+ * Конвертер добавляется в конец списка, поэтому при Accept: * / * или без Accept ответ остается в JSON */
+@Configuration
+public class SmileConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    public SmileConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.getObject().factory(smileFactory()).build()));
+    }
+
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+}
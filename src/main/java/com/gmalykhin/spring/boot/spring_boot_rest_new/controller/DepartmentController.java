@@ -1,18 +1,28 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
 
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.ResponseBodyCache;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CacheStatisticsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CursorPageDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.SalaryBandReportDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldInPostMethod;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldIsZero;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.service.MyService;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.service.SalaryBandUpdater;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,15 +31,47 @@ import static com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils.*;
 @RestController
 @RequestMapping("/api/departments")
 public class DepartmentController {
+
+    private static final int MAX_PAGE_LIMIT = 1000;
+
     private final MyService myService;
+    private final SalaryBandUpdater salaryBandUpdater;
+    private final ResponseBodyCache responseBodyCache;
 
     @Autowired
-    public DepartmentController(MyService myService) {
+    public DepartmentController(MyService myService, SalaryBandUpdater salaryBandUpdater,
+                                ResponseBodyCache responseBodyCache) {
         this.myService = myService;
+        this.salaryBandUpdater = salaryBandUpdater;
+        this.responseBodyCache = responseBodyCache;
     }
 
+    /* If-None-Match: ETag списка - счетчик изменений таблицы departments, ETag департамента - его версия.
+     * Версия читается до данных, поэтому ответ, прочитанный во время изменения, не останется в ResponseBodyCache.
+     * Сжатый JSON - отдельное представление с ETag "<версия>-gzip", If-None-Match принимает оба ETag версии */
     @GetMapping
-    public List<Department> showAllDepartments() {
+    public ResponseEntity<?> showAllDepartments(WebRequest webRequest) {
+
+        var versionTag = myService.getDepartmentsVersionTag();
+
+        if (!prefersJson(webRequest.getHeader(HttpHeaders.ACCEPT))) {
+            return webRequest.checkNotModified(versionTag) ? null : ResponseEntity.ok(getAllDepartments());
+        }
+
+        var notModifiedTag = matchIfNoneMatch(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH),
+                versionTag, gzipTag(versionTag));
+
+        if (notModifiedTag != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(notModifiedTag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        return cachedJson(responseBodyCache.get("departments", versionTag, this::getAllDepartments),
+                webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING), versionTag);
+    }
+
+    private List<Department> getAllDepartments() {
 
         var allDepartments = myService.getAllDepartments();
 
@@ -40,12 +82,26 @@ public class DepartmentController {
     }
 
     @GetMapping("/{id}")
-    public Department getDepartment(@PathVariable String id) throws NumberFormatException {
-        return myService.getDepartment(Integer.parseInt(id.trim()));
+    public Department getDepartment(@PathVariable String id, WebRequest webRequest) throws NumberFormatException {
+
+        var department = myService.getDepartment(Integer.parseInt(id.trim()));
+
+        return webRequest.checkNotModified(departmentVersionTag(department.getId(), department.getVersion()))
+                ? null : department;
     }
 
     @GetMapping("/average-salary-by-department")
-    public List<AverageSalaryByDepartmentDTO> getAvgSalaryByDept() {
+    public ResponseEntity<?> getAvgSalaryByDept(WebRequest webRequest) {
+
+        if (!prefersJson(webRequest.getHeader(HttpHeaders.ACCEPT))) {
+            return ResponseEntity.ok(getAverageSalaryByDepartment());
+        }
+        return cachedJson(responseBodyCache.get("average-salary-by-department",
+                myService.getAverageSalaryVersionTag(), this::getAverageSalaryByDepartment),
+                webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING), null);
+    }
+
+    private List<AverageSalaryByDepartmentDTO> getAverageSalaryByDepartment() {
 
         var result = myService.getAverageSalaryByDepartment();
 
@@ -55,6 +111,75 @@ public class DepartmentController {
         return result;
     }
 
+    /* JSON ответы списка департаментов и средней зарплаты берутся из ResponseBodyCache: сериализуются один раз
+     * до следующего изменения данных через MyService и отдаются сжатыми gzip, если клиент это принимает.
+     * Если клиент явно запросил другой формат (например, Smile), ответ сериализуется как обычно.
+     * versionTag - ETag несжатого ответа, null - ответ без ETag */
+    private static ResponseEntity<byte[]> cachedJson(ResponseBodyCache.CachedBody body, String acceptEncoding,
+                                                     String versionTag) {
+
+        var response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            if (versionTag != null) {
+                response.eTag(gzipTag(versionTag));
+            }
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        if (versionTag != null) {
+            response.eTag(versionTag);
+        }
+        return response.body(body.json());
+    }
+
+    private static String gzipTag(String versionTag) {
+        return versionTag + "-gzip";
+    }
+
+    // Количество работников, наименьшая, наибольшая, средняя зарплата, медиана, p90 и гистограмма
+    // в диапазоне minSalary - maxSalary департамента
+    @GetMapping("/salary-stats")
+    public List<DepartmentSalaryStatsDTO> getSalaryStatsByDepartment() {
+
+        var result = myService.getSalaryStatsByDepartment();
+
+        if (result.isEmpty()) {
+            throw new NoSuchEntityFoundInDBException();
+        }
+        return result;
+    }
+
+    @GetMapping("/{id}/salary-stats")
+    public DepartmentSalaryStatsDTO getDepartmentSalaryStats(@PathVariable String id) throws NumberFormatException {
+        return myService.getDepartmentSalaryStats(Integer.parseInt(id.trim()));
+    }
+
+    // Keyset-пагинация работников департамента: /api/departments/{id}/employees?after=<id>&limit=N
+    @GetMapping("/{id}/employees")
+    public CursorPageDTO<EmployeeViewDTO> getDepartmentEmployees(@PathVariable String id,
+                                                                 @RequestParam(defaultValue = "0") int after,
+                                                                 @RequestParam(defaultValue = "100") int limit)
+                                                                                        throws NumberFormatException {
+        if (after < 0) {
+            throw new IncorrectFieldData("The after parameter can not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IncorrectFieldData("The limit parameter must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+
+        var employees = myService.getDepartmentEmployeesAfterId(Integer.parseInt(id.trim()), after, limit);
+        var nextCursor = employees.size() < limit ? null : employees.get(employees.size() - 1).id();
+
+        return new CursorPageDTO<>(employees, nextCursor);
+    }
+
+    @GetMapping("/cache-statistics")
+    public CacheStatisticsDTO getDepartmentCacheStatistics() {
+        return myService.getDepartmentCacheStatistics();
+    }
+
     @PostMapping
     public ResponseEntity<Department> addNewDepartment(@Valid @RequestBody Department department
                                                                                     , BindingResult bindingResult) {
@@ -69,68 +194,48 @@ public class DepartmentController {
             throw new IncorrectFieldData(errorsToString(bindingResult.getFieldErrors()));
         }
 
-        myService.existenceOfTheDepartmentWithSuchNameInDB(department.getDepartmentName());
         checkDepartmentMinMaxSalary(department.getMinSalary(), department.getMaxSalary());
         department.setDepartmentName(department.getDepartmentName().toUpperCase());
-        myService.saveDepartment(department);
 
-        return new ResponseEntity<>(department, HttpStatus.CREATED);
+        return new ResponseEntity<>(myService.createDepartment(department), HttpStatus.CREATED);
     }
 
     @PutMapping
-    public ResponseEntity<String> updateDepartment(@Valid @RequestBody Department department, BindingResult bindingResult) {
-
-        var id = department.getId();
+    public ResponseEntity<String> updateDepartment(@Valid @RequestBody Department department, BindingResult bindingResult,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (id <= 0) {
+        if (department.getId() <= 0) {
             throw new IdFieldIsZero(department);
         }
 
-        if (myService.getDepartment(id) == null) {
-            throw new NoSuchEntityFoundInDBException(department.getId());
-        }
-
-        var repoDepartment = myService.getDepartment(id);
-
-        checkEntityFieldsIfNullThenFill(department, repoDepartment);
-
         if (bindingResult.hasErrors()) {
             throw new IncorrectFieldData(errorsToString(bindingResult.getFieldErrors()));
         }
-        department.setDepartmentName(department.getDepartmentName().toUpperCase());
-
-        if (!department.getDepartmentName().equals(repoDepartment.getDepartmentName())) {
-            myService.existenceOfTheDepartmentWithSuchNameInDB(department.getDepartmentName());
-        }
-        checkDepartmentMinMaxSalary(department.getMinSalary(), department.getMaxSalary());
 
         var info = "The department was successfully updated";
 
-        if (!(department.equals(repoDepartment))) {
+        if (myService.updateDepartmentWithSalaryClamp(department, ifMatch) > 0) {
+            info += ". One or more employees had their salary changed in accordance " +
+                    "with the minimum and maximum salaries for this department";
+        }
+        return new ResponseEntity<>(info, HttpStatus.CREATED);
+    }
 
-            if (Double.compare(repoDepartment.getMinSalary(), department.getMinSalary()) != 0
-                    || Double.compare(repoDepartment.getMaxSalary(), department.getMaxSalary()) != 0) {
+    // Изменение диапазонов зарплат многих департаментов: JSON массив департаментов с полями id, minSalary, maxSalary.
+    // В ответе - результат изменения каждого департамента
+    @PutMapping("/salary-bands")
+    public SalaryBandReportDTO updateSalaryBands(@RequestBody List<Department> departments) {
 
-                if (myService.checkEmpsSalaryIfMinOrMaxSalaryWasEdited(department)) {
-                    info += ". One or more employees had their salary changed in accordance " +
-                            "with the minimum and maximum salaries for this department";
-                }
-            }
-            myService.saveDepartment(department);
+        if (departments.isEmpty()) {
+            throw new IncorrectFieldData("Write at least one department");
         }
-        return new ResponseEntity<>(info, HttpStatus.CREATED);
+        return salaryBandUpdater.updateSalaryBands(departments);
     }
 
     @DeleteMapping("/{id}")
     public String deleteDepartment(@PathVariable String id) throws NumberFormatException {
 
-        var intId = Integer.parseInt(id.trim());
-        var department = myService.getDepartment(intId);
-
-        if (department == null) {
-            throw new NoSuchEntityFoundInDBException(intId);
-        }
-        myService.deleteDepartment(intId);
+        myService.deleteDepartment(Integer.parseInt(id.trim()));
         return "Department with ID = " + id + " was successfully deleted";
     }
 }
@@ -1,6 +1,11 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CursorPageDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldInPostMethod;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldIsZero;
@@ -9,14 +14,25 @@ import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchE
 import com.gmalykhin.spring.boot.spring_boot_rest_new.service.MyService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils.*;
 
@@ -24,15 +40,27 @@ import static com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils.*;
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private final MyService myService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public EmployeeController(MyService myService) {
+    public EmployeeController(MyService myService, ObjectMapper objectMapper) {
         this.myService = myService;
+        this.objectMapper = objectMapper;
     }
 
+    /* GET запросы работников поддерживают If-None-Match: ETag списков строится по счетчикам изменений таблиц
+     * и проверяется до запроса к БД, ETag одного работника - по версиям работника и его департамента.
+     * При совпадении возвращается 304 Not Modified без тела */
     @GetMapping
-    public List<Employee> showAllEmployees() {
+    public List<EmployeeViewDTO> showAllEmployees(WebRequest webRequest) {
+
+        if (webRequest.checkNotModified(myService.getEmployeesVersionTag())) {
+            return null;
+        }
 
         var allEmployee = myService.getAllEmployees();
         if (allEmployee.isEmpty()) {
@@ -41,9 +69,63 @@ public class EmployeeController {
         return allEmployee;
     }
 
+    // Keyset-пагинация: /api/employees?after=<id>&limit=N
+    // Возвращает работников с id > after, отсортированных по id, и курсор для следующей страницы
+    @GetMapping(params = "limit")
+    public CursorPageDTO<EmployeeViewDTO> showEmployeesPage(@RequestParam(defaultValue = "0") int after,
+                                                            @RequestParam int limit, WebRequest webRequest) {
+
+        if (after < 0) {
+            throw new IncorrectFieldData("The after parameter can not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IncorrectFieldData("The limit parameter must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+
+        if (webRequest.checkNotModified(myService.getEmployeesVersionTag())) {
+            return null;
+        }
+
+        var employees = myService.getEmployeesAfterId(after, limit);
+        var nextCursor = employees.size() < limit ? null : employees.get(employees.size() - 1).id();
+
+        return new CursorPageDTO<>(employees, nextCursor);
+    }
+
+    // /api/employees?after=<id> без limit - страница размера по умолчанию, а не полный список работников
+    @GetMapping(params = {"after", "!limit"})
+    public CursorPageDTO<EmployeeViewDTO> showEmployeesPage(@RequestParam int after, WebRequest webRequest) {
+        return showEmployeesPage(after, DEFAULT_PAGE_LIMIT, webRequest);
+    }
+
+    // Потоковая выдача всех работников: JSON массив пишется в ответ по мере чтения строк из БД
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees() {
+        return streamJsonArray(Employee.class, myService::forEachEmployee);
+    }
+
+    private <T> ResponseEntity<StreamingResponseBody> streamJsonArray(Class<T> type, Consumer<Consumer<T>> source) {
+
+        StreamingResponseBody body = out -> {
+            try (var sequenceWriter = objectMapper.writerFor(type).writeValuesAsArray(out)) {
+                source.accept(e -> {
+                    try {
+                        sequenceWriter.write(e);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @GetMapping("/{id}")
-    public Employee getEmployee(@PathVariable String id) throws NumberFormatException {
-        return myService.getEmployee(Integer.parseInt(id.trim()));
+    public EmployeeViewDTO getEmployee(@PathVariable String id, WebRequest webRequest) throws NumberFormatException {
+
+        var employee = myService.getEmployeeView(Integer.parseInt(id.trim()));
+
+        return webRequest.checkNotModified(employee.versionTag()) ? null : employee;
     }
 
     @GetMapping("/by-department")
@@ -57,6 +139,50 @@ public class EmployeeController {
         return result;
     }
 
+    /* Ночная выгрузка всех работников по департаментам: NDJSON (по одному работнику в строке) или CSV.
+     * Строки пишутся в ответ по мере чтения из курсора JDBC, память не зависит от количества работников */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@RequestParam(defaultValue = "ndjson") String format) {
+
+        return switch (format.trim().toLowerCase()) {
+            case "ndjson" -> ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+                // Без flush после каждого работника, ответ отправляется по мере заполнения буфера
+                var employeeWriter = objectMapper.writerFor(EmployeeDTO.class)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+                // Строки разделяются только переводом строки, без пробела между корневыми значениями JSON
+                try (var generator = objectMapper.getFactory().createGenerator(out).setRootValueSeparator(null)) {
+                    myService.exportEmployeesByDepartment(e -> {
+                        try {
+                            employeeWriter.writeValue(generator, e);
+                            generator.writeRaw('\n');
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+                }
+            });
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employees.csv")
+                    .body(out -> {
+                        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+                        writer.write("id,name,surname,salary,departmentName\r\n");
+                        myService.exportEmployeesByDepartment(e -> {
+                            try {
+                                writer.write(e.id() + "," + csvField(e.name()) + "," + csvField(e.surname()) + ","
+                                        + csvField(e.salary()) + "," + csvField(e.departmentName()) + "\r\n");
+                            } catch (IOException ex) {
+                                throw new UncheckedIOException(ex);
+                            }
+                        });
+                        writer.flush();
+                    });
+            default -> throw new IncorrectFieldData("The format parameter must be ndjson or csv");
+        };
+    }
+
     @GetMapping("/search-for-employees-born-in/{birthDate}")
     public List<EmployeeDTO> searchEmployee(@PathVariable String birthDate) throws DateTimeParseException {
 
@@ -94,6 +220,21 @@ public class EmployeeController {
         return employees;
     }
 
+    /* Потоковый вариант поиска для широких диапазонов дат: работники сортируются по birthday и id
+     * и пишутся в ответ по мере чтения из БД. Если никто не найден, возвращается пустой массив,
+     * т.к. статус ответа отправляется до чтения первой строки */
+    @GetMapping("/search-for-employees-born-in/{firstDate}/{secondDate}/stream")
+    public ResponseEntity<StreamingResponseBody> streamEmployeesBornBetween(@PathVariable String firstDate,
+                                                 @PathVariable String secondDate) throws DateTimeParseException {
+        var localFirstDate = LocalDate.parse(firstDate.trim());
+        var localSecondDate = LocalDate.parse(secondDate.trim());
+
+        var fDate = localFirstDate.isAfter(localSecondDate) ? localSecondDate : localFirstDate;
+        var sDate = localFirstDate.isAfter(localSecondDate) ? localFirstDate : localSecondDate;
+
+        return streamJsonArray(EmployeeDTO.class, action -> myService.forEachEmployeeBornBetween(fDate, sDate, action));
+    }
+
     @PostMapping
     public ResponseEntity<Employee> addNewEmployee(@Valid @RequestBody Employee employee, BindingResult bindingResult) {
 
@@ -105,8 +246,6 @@ public class EmployeeController {
 
         if (employee.getDepartment().getId() == 0) {
             throw new IncorrectFieldData("You must write the department (only id field) for a new employee");
-        } else {
-            employee = myService.checkEmployeesDepartmentFields(employee);
         }
 
         // Проверка на ошибки валидации полей entity
@@ -115,25 +254,28 @@ public class EmployeeController {
         }
 
         checkBirthday(employee.getBirthday());
-        checkEmployeesSalary(employee.getSalary(), employee.getDepartment());
-        employee.setName(initCap(employee.getName()));
-        employee.setSurname(initCap(employee.getSurname()));
 
-        myService.saveEmployee(employee);
-        return new ResponseEntity<>(employee, HttpStatus.CREATED);
+        return new ResponseEntity<>(myService.createEmployee(employee), HttpStatus.CREATED);
     }
 
-    @PutMapping
-    public Employee updateEmployee(@Valid @RequestBody Employee employee, BindingResult bindingResult) {
+    // Массовый импорт работников: JSON массив или NDJSON (по одному работнику в строке).
+    // Записи читаются из тела запроса по одной, в ответе - результат импорта каждой записи
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportReportDTO addNewEmployees(InputStream body) throws IOException {
+
+        try (var employees = objectMapper.readerFor(Employee.class).<Employee>readValues(body)) {
+            return myService.importEmployees(employees);
+        }
+    }
 
-        int id = employee.getId();
+    @PutMapping
+    public Employee updateEmployee(@Valid @RequestBody Employee employee, BindingResult bindingResult,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (id <= 0) {
+        if (employee.getId() <= 0) {
             throw new IdFieldIsZero(employee);
         }
-        if (myService.getEmployee(id) == null) {
-            throw new NoSuchEntityFoundInDBException(employee.getId());
-        } else if (employee.getBirthday() != null) {
+        if (employee.getBirthday() != null) {
             throw new IncorrectFieldData("You can not edit the date of birth");
         }
 
@@ -141,63 +283,13 @@ public class EmployeeController {
             throw new IncorrectFieldData(errorsToString(bindingResult.getFieldErrors()));
         }
 
-        var repoEmployee = myService.getEmployee(id);
-
-        checkEntityFieldsIfNullThenFill(employee, repoEmployee);
-
-        if (employee.getDepartment() != null) {
-
-            if (employee.getDepartment() != repoEmployee.getDepartment()) {
-                employee = myService.checkEmployeesDepartmentFields(employee);
-            }
-
-            if (repoEmployee.getDepartment() != null
-                    && employee.getDepartment().getId() != repoEmployee.getDepartment().getId()) {
-
-                // Если работнику поменяли департамент на новый и минимальная зарплата нового департамента
-                // больше, чем максимальная зарплата предыдущего департамента, то работнику устанавливается зарплата,
-                // соответствущая минимальной зарплпте нового департамента (например, повышение по службе)
-                if (employee.getDepartment().getMinSalary() > repoEmployee.getDepartment().getMaxSalary()
-                        && employee.getSalary() < employee.getDepartment().getMinSalary()) {
-                    employee.setSalary(employee.getDepartment().getMinSalary());
-                }
-
-                // Если работнику поменяли департамент на новый и максимальная зарплата нового департамента
-                // меньше, чем минимальная зарплата предыдущего департамента, то работнику устанавливается зарплата,
-                // соответствущая максимальной зарплпте нового департамента (например, понижение по службе)
-                else if (employee.getDepartment().getMaxSalary() < repoEmployee.getDepartment().getMinSalary()
-                            && employee.getSalary() > employee.getDepartment().getMaxSalary()) {
-                    employee.setSalary(employee.getDepartment().getMaxSalary());
-                }
-            }
-
-            checkEmployeesSalary(employee.getSalary(), employee.getDepartment());
-
-        } else if (Double.compare(employee.getSalary(), repoEmployee.getSalary()) != 0) {
-            throw new IncorrectFieldData("You can not edit the salary field because the department field is null");
-        }
-
-        employee.setName(initCap(employee.getName()));
-        employee.setSurname(initCap(employee.getSurname()));
-
-        // Проверка на то, были ли вообще произведены какие-либо изменения с редактируемым объектом
-        // Если да, то происходит запись в БД, иначе - возвращется редактируемый объект
-        if (!(employee.equals(repoEmployee))) {
-            myService.saveEmployee(employee);
-        }
-        return employee;
+        return myService.updateEmployee(employee, ifMatch);
     }
 
     @DeleteMapping("/{id}")
     public String deleteEmployee(@PathVariable String id) throws NumberFormatException {
 
-        var intId = Integer.parseInt(id.trim());
-        var employee = myService.getEmployee(intId);
-
-        if (employee == null) {
-            throw new NoSuchEntityFoundInDBException(intId);
-        }
-        myService.deleteEmployee(intId);
+        myService.deleteEmployee(Integer.parseInt(id.trim()));
         return "Employee with ID = " + id + " was successfully deleted";
     }
 }
\ No newline at end of file
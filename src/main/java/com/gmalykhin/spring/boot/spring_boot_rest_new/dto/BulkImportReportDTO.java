@@ -0,0 +1,6 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+import java.util.List;
+
+public record BulkImportReportDTO(int imported, int failed, List<BulkImportRowDTO> rows) {
+}
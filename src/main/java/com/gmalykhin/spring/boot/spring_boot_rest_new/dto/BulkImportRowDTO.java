@@ -0,0 +1,14 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+// Результат импорта одной записи: row - порядковый номер записи во входных данных (с 1),
+// id - id созданного работника, либо error - причина, по которой запись не была импортирована
+public record BulkImportRowDTO(int row, Integer id, String error) {
+
+    public static BulkImportRowDTO imported(int row, int id) {
+        return new BulkImportRowDTO(row, id, null);
+    }
+
+    public static BulkImportRowDTO failed(int row, String error) {
+        return new BulkImportRowDTO(row, null, error);
+    }
+}
@@ -0,0 +1,9 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+public record CacheStatisticsDTO(long hits, long misses, long evictions, int size, int capacity) {
+
+    public double getHitRatio() {
+        var requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
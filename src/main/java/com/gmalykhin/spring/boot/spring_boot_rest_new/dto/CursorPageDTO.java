@@ -0,0 +1,8 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+import java.util.List;
+
+// Страница keyset-пагинации: nextCursor - id последнего элемента страницы,
+// который передается в параметр after для получения следующей страницы, либо null если страница последняя
+public record CursorPageDTO<T>(List<T> items, Integer nextCursor) {
+}
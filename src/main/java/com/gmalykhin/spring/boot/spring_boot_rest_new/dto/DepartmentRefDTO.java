@@ -0,0 +1,7 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Департамент работника в ответах GET, как и у Employee.department без minSalary и maxSalary
+public record DepartmentRefDTO(int id, String departmentName, @JsonIgnore int version) {
+}
@@ -0,0 +1,15 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+import java.util.List;
+
+/* Статистика зарплат департамента внутри его диапазона minSalary - maxSalary.
+ * Если в департаменте нет работников, то lowestSalary, highestSalary, averageSalary, medianSalary и p90Salary - null */
+public record DepartmentSalaryStatsDTO(int departmentId, String departmentName, double minSalary, double maxSalary,
+                                       long employeeCount, Double lowestSalary, Double highestSalary,
+                                       Double averageSalary, Double medianSalary, Double p90Salary,
+                                       List<SalaryBucketDTO> buckets) {
+
+    // Интервал гистограммы [from, to), последний интервал включает maxSalary
+    public record SalaryBucketDTO(double from, double to, long count) {
+    }
+}
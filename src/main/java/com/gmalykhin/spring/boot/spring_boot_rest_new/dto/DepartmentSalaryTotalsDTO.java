@@ -0,0 +1,5 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+// Сумма зарплат и количество работников департамента, из которых считается средняя зарплата
+public record DepartmentSalaryTotalsDTO(int departmentId, String departmentName, Double salarySum, Long employeeCount) {
+}
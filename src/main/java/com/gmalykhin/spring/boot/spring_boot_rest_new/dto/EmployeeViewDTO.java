@@ -0,0 +1,28 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils;
+
+import java.time.LocalDate;
+
+/* Работник для ответов GET: тот же JSON, что и у entity Employee, но запрос сразу строит неизменяемый record,
+ * без managed entity в persistence context, снимка для dirty checking и прокси департамента */
+public record EmployeeViewDTO(int id, String name, String surname,
+                              @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd") LocalDate birthday,
+                              Double salary, DepartmentRefDTO department, @JsonIgnore int version) {
+
+    // Для select new в JPQL: департамент выбирается через left join, поэтому его id и version могут быть null
+    public EmployeeViewDTO(int id, String name, String surname, LocalDate birthday, Double salary, int version,
+                           Integer departmentId, String departmentName, Integer departmentVersion) {
+        this(id, name, surname, birthday, salary,
+                departmentId == null ? null : new DepartmentRefDTO(departmentId, departmentName, departmentVersion),
+                version);
+    }
+
+    public String versionTag() {
+        return department == null
+                ? Utils.employeeVersionTag(id, version, null, null)
+                : Utils.employeeVersionTag(id, version, department.id(), department.version());
+    }
+}
@@ -0,0 +1,14 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.dto;
+
+// Результат изменения диапазона зарплат одного департамента: clampedEmployees - количество работников,
+// у которых зарплата была приведена к новому диапазону, либо error - причина, по которой департамент не был изменен
+public record SalaryBandResultDTO(int id, Integer clampedEmployees, String error) {
+
+    public static SalaryBandResultDTO updated(int id, int clampedEmployees) {
+        return new SalaryBandResultDTO(id, clampedEmployees, null);
+    }
+
+    public static SalaryBandResultDTO failed(int id, String error) {
+        return new SalaryBandResultDTO(id, null, error);
+    }
+}
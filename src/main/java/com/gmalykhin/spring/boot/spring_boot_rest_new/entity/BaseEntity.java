@@ -1,5 +1,6 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @MappedSuperclass
@@ -10,6 +11,13 @@ public abstract class BaseEntity {
     @Column(name = "id")
     protected int id;
 
+    // Увеличивается Hibernate при каждом изменении записи, используется для ETag ответов GET.
+    // В JSON не передается, при PUT берется из записи в БД
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    protected int version;
+
     public int getId() {
         return id;
     }
@@ -17,4 +25,12 @@ public abstract class BaseEntity {
     public void setId(int id) {
         this.id = id;
     }
-}
\ No newline at end of file
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+}
@@ -3,12 +3,19 @@ package com.gmalykhin.spring.boot.spring_boot_rest_new.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 import java.util.Objects;
 
+/* Департаменты хранятся в кэше второго уровня Hibernate (регион departments в ehcache.xml):
+ * после сброса DepartmentCache департамент по id загружается без запроса к БД.
+ * READ_WRITE: изменение через Hibernate обновляет запись в кэше после коммита, bulk delete сбрасывает регион */
 @Entity
 @Table(name = "departments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "departments")
 public class Department extends BaseEntity {
 
     @Column(name = "name" , unique = true)
@@ -71,15 +78,15 @@ public class Department extends BaseEntity {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Department that = (Department) o;
-        return this.id== that.id && departmentName.equals(that.departmentName)
-                && (Double.compare(minSalary, that.minSalary) == 0)
-                && (Double.compare(maxSalary, that.maxSalary) == 0);
+        // Департамент работника может быть прокси Hibernate (подкласс без заполненных полей), поэтому instanceof и геттеры
+        if (!(o instanceof Department that)) return false;
+        return getId() == that.getId() && getDepartmentName().equals(that.getDepartmentName())
+                && (Double.compare(getMinSalary(), that.getMinSalary()) == 0)
+                && (Double.compare(getMaxSalary(), that.getMaxSalary()) == 0);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(departmentName, minSalary, maxSalary);
+        return Objects.hash(getDepartmentName(), getMinSalary(), getMaxSalary());
     }
 }
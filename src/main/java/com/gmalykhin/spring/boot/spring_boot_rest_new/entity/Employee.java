@@ -8,15 +8,17 @@ import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
-import org.hibernate.annotations.NotFound;
-import org.hibernate.annotations.NotFoundAction;
 
 import java.time.LocalDate;
 import java.util.Objects;
 
 
+/* Индекс по birthday для поиска по дате рождения. InnoDB добавляет к вторичному индексу первичный ключ,
+ * поэтому фактически это индекс (birthday, id), и выборка с order by birthday, id читается по индексу без сортировки.
+ * Так же индекс по department_id - это (department_id, id) для постраничного списка работников департамента */
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {@Index(name = "idx_employees_birthday", columnList = "birthday"),
+        @Index(name = "idx_employees_department", columnList = "department_id")})
 public class Employee extends BaseEntity {
 
     @Column(name = "name")
@@ -42,10 +44,12 @@ public class Employee extends BaseEntity {
             message = " The salary field must have a max value of 999999.99 ")
     private Double salary;
 
-    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.DETACH, CascadeType.MERGE, CascadeType.REFRESH})
-    @JoinColumn(name = "department_id")
-    @NotFound(action = NotFoundAction.IGNORE)
-    @JsonIgnoreProperties({"minSalary", "maxSalary"})
+    // Департамент изменяется только через /api/departments, поэтому PERSIST и MERGE не каскадируются:
+    // работнику может быть назначена отсоединенная копия департамента из DepartmentCache.
+    // Департамент загружается только там, где он нужен: join fetch или @EntityGraph в EmployeeRepository
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.DETACH, CascadeType.REFRESH})
+    @JoinColumn(name = "department_id", foreignKey = @ForeignKey(name = "fk_employees_department"))
+    @JsonIgnoreProperties({"minSalary", "maxSalary", "hibernateLazyInitializer"})
     private Department department;
 
     public String getName() {
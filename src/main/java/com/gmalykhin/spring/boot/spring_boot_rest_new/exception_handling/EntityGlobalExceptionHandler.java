@@ -1,52 +1,135 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.UncheckedIOException;
 import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils.prefersJson;
+
+/* Ошибки клиента (пустой список, неверные данные) - частый и обычный результат запроса, поэтому их обработка
+ * должна быть дешевой: исключения приложения не заполняют стек вызовов, а ответы с неизменным текстом
+ * сериализуются в JSON один раз при запуске (prebuiltBodies) и отдаются готовыми байтами.
+ * Если клиент явно запросил другой формат (например, Smile), ответ сериализуется как обычно */
 @ControllerAdvice
 public class EntityGlobalExceptionHandler {
 
+    static final String CONCURRENT_UPDATE_MESSAGE = "The entity was changed by another request. " +
+            "Read it again and repeat the update";
+
+    static final String INVALID_INTEGER_MESSAGE = "Invalid input. An integer was expected";
+
+    static final String DATE_PATTERN_MESSAGE = "Use pattern api/employees/search-for-employees-born-in/" +
+            "1970-01-12/2001-11-07 or api/employees/search-for-employees-born-in/1970-01-12 " +
+            "or check the existence of the date!";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> prebuiltBodies = new HashMap<>();
+
+    @Autowired
+    public EntityGlobalExceptionHandler(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.meterRegistry = meterRegistry;
+
+        var writer = objectMapper.writer();
+
+        try {
+            for (var message : new String[] {NoSuchEntityFoundInDBException.NO_ENTITIES_MESSAGE,
+                    IdFieldInPostMethod.MESSAGE, CONCURRENT_UPDATE_MESSAGE, INVALID_INTEGER_MESSAGE,
+                    DATE_PATTERN_MESSAGE}) {
+                prebuiltBodies.put(message, writer.writeValueAsBytes(new ExceptionWrapper(message)));
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Счетчик api.exceptions с тегом exception - по одному на каждый тип обработанного исключения
+    private void count(Exception exception) {
+        counters.computeIfAbsent(exception.getClass(), type ->
+                meterRegistry.counter("api.exceptions", "exception", type.getSimpleName())).increment();
+    }
+
+    private ResponseEntity<?> response(String message, HttpStatus status, WebRequest request) {
+
+        var json = prebuiltBodies.get(message);
+
+        if (json != null && prefersJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(json);
+        }
+        return new ResponseEntity<>(new ExceptionWrapper(message), status);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<?> handleException(
+            NoSuchEntityFoundInDBException exception, WebRequest request){
+
+        count(exception);
+        return response(exception.getMessage(), HttpStatus.NOT_FOUND, request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<ExceptionWrapper> handleException(
-            NoSuchEntityFoundInDBException exception){
+            PreconditionFailed exception){
 
-        return new ResponseEntity<>(new ExceptionWrapper(exception.getMessage()), HttpStatus.NOT_FOUND);
+        count(exception);
+        return new ResponseEntity<>(new ExceptionWrapper(exception.getMessage()), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Запись изменена другим запросом между чтением и сохранением (проверка @Version при UPDATE)
+    @ExceptionHandler
+    public ResponseEntity<?> handleException(
+            ObjectOptimisticLockingFailureException exception, WebRequest request){
+
+        count(exception);
+        return response(CONCURRENT_UPDATE_MESSAGE, HttpStatus.CONFLICT, request);
     }
 
     @ExceptionHandler
     public ResponseEntity<ExceptionWrapper> handleException(
             Exception exception){
 
+        count(exception);
         return new ResponseEntity<>(new ExceptionWrapper(exception.getMessage()
                 + ". Please check your input is correct!"), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler
-    public ResponseEntity<ExceptionWrapper> handleException(
-            NumberFormatException exception){
+    public ResponseEntity<?> handleException(
+            NumberFormatException exception, WebRequest request){
 
-        return new ResponseEntity<>(new ExceptionWrapper("Invalid input. An integer was expected")
-                , HttpStatus.BAD_REQUEST);
+        count(exception);
+        return response(INVALID_INTEGER_MESSAGE, HttpStatus.BAD_REQUEST, request);
     }
 
     @ExceptionHandler
-    public ResponseEntity<ExceptionWrapper> handleException(
-            DateTimeParseException exception){
+    public ResponseEntity<?> handleException(
+            DateTimeParseException exception, WebRequest request){
 
-        return new ResponseEntity<>(
-                new ExceptionWrapper("Use pattern api/employees/search-for-employees-born-in/" +
-                "1970-01-12/2001-11-07 or api/employees/search-for-employees-born-in/1970-01-12 " +
-                        "or check the existence of the date!"), HttpStatus.BAD_REQUEST);
+        count(exception);
+        return response(DATE_PATTERN_MESSAGE, HttpStatus.BAD_REQUEST, request);
     }
 
     @ExceptionHandler
-    public ResponseEntity<ExceptionWrapper> handleException(
-            IncorrectFieldData exception){
+    public ResponseEntity<?> handleException(
+            IncorrectFieldData exception, WebRequest request){
 
-        return new ResponseEntity<>(new ExceptionWrapper(exception.getMessage()), HttpStatus.BAD_REQUEST);
+        count(exception);
+        return response(exception.getMessage(), HttpStatus.BAD_REQUEST, request);
     }
 }
\ No newline at end of file
@@ -2,5 +2,7 @@ package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
 
 public class IdFieldInPostMethod extends IncorrectFieldData {
 
-    public IdFieldInPostMethod() { super("No need to write the id field for the POST method");}
+    public static final String MESSAGE = "No need to write the id field for the POST method";
+
+    public IdFieldInPostMethod() { super(MESSAGE);}
 }
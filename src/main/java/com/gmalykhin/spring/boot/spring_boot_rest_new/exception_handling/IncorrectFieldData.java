@@ -1,8 +1,9 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
 
+// Ошибка в данных клиента - обычный ответ 400, а не сбой: стек вызовов не нужен и не заполняется
 public class IncorrectFieldData extends RuntimeException{
 
     public IncorrectFieldData(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
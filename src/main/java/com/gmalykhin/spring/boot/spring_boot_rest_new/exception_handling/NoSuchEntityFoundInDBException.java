@@ -1,16 +1,19 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
 
+// Ответ 404 (в том числе пустой список): стек вызовов не нужен и не заполняется
 public class NoSuchEntityFoundInDBException extends RuntimeException {
 
+    public static final String NO_ENTITIES_MESSAGE = "No such entity(s) found in DB";
+
     public NoSuchEntityFoundInDBException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public NoSuchEntityFoundInDBException() {
-        super("No such entity(s) found in DB");
+        this(NO_ENTITIES_MESSAGE);
     }
 
     public NoSuchEntityFoundInDBException(int id) {
-        super("There is no such raw with ID = " + id + " in DB");
+        this("There is no such raw with ID = " + id + " in DB");
     }
 }
@@ -0,0 +1,10 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
+
+// Ответ 412: стек вызовов не нужен и не заполняется
+public class PreconditionFailed extends RuntimeException {
+
+    public PreconditionFailed(String currentTag) {
+        super("The entity was changed after you read it. The current ETag is \"" + currentTag
+                + "\", read the entity again and repeat the update", null, false, false);
+    }
+}
@@ -1,11 +1,19 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
 
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryTotalsDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.List;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 
 public interface DepartmentRepository extends JpaRepository<Department, Integer> {
 
@@ -14,5 +22,32 @@ public interface DepartmentRepository extends JpaRepository<Department, Integer>
             " from Employee e join Department d ON d.id = e.department.id group by d.departmentName")
     List<AverageSalaryByDepartmentDTO> getAverageSalaryByDepartment();
 
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto" +
+            ".DepartmentSalaryTotalsDTO(d.id, d.departmentName, sum(e.salary), count(e)) " +
+            " from Employee e join Department d ON d.id = e.department.id group by d.id, d.departmentName")
+    List<DepartmentSalaryTotalsDTO> getSalaryTotalsByDepartment();
+
+    // null, если в департаменте нет работников
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto" +
+            ".DepartmentSalaryTotalsDTO(d.id, d.departmentName, sum(e.salary), count(e)) " +
+            " from Employee e join Department d ON d.id = e.department.id where d.id = ?1 group by d.id, d.departmentName")
+    DepartmentSalaryTotalsDTO getSalaryTotals(int departmentId);
+
+    /* Результаты запросов департаментов - в кэше запросов Hibernate (регион department-queries), сами департаменты -
+     * в кэше entity. Hibernate сбрасывает результаты при изменении таблицы departments через Hibernate:
+     * save, delete и JPQL update/delete. Запросы средней зарплаты и сумм зарплат не кэшируются:
+     * их результат уже хранит DepartmentSalaryAggregate, а сверка с БД должна читать саму БД */
+    @Override
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "department-queries")})
+    List<Department> findAll();
+
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "department-queries")})
     Department getDepartmentByDepartmentName(String departmentName);
+
+    // В отличие от deleteById удаляет без предварительного SELECT. Возвращает 0, если департамента нет
+    @Modifying
+    @Query("delete from Department d where d.id = ?1")
+    int deleteDepartmentById(int id);
 }
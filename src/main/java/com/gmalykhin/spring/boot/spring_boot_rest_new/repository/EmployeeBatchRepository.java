@@ -0,0 +1,63 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/* Запись работников пачками через JDBC batch.
+ * Hibernate не может объединять INSERT в batch для сущностей с GenerationType.IDENTITY,
+ * поэтому массовый импорт выполняется напрямую через JDBC, а сгенерированные id читаются из getGeneratedKeys.
+ * Для MySQL в url должен быть указан rewriteBatchedStatements=true, тогда batch отправляется одним запросом */
+@Repository
+@Timed("jdbc.repository.invocations")
+public class EmployeeBatchRepository {
+
+    private static final String INSERT_EMPLOYEE =
+            "insert into employees (name, surname, birthday, salary, department_id, version) values (?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EmployeeBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void insertAll(List<Employee> employees) {
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.prepareStatement(INSERT_EMPLOYEE, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (var e : employees) {
+                    statement.setString(1, e.getName());
+                    statement.setString(2, e.getSurname());
+                    statement.setDate(3, Date.valueOf(e.getBirthday()));
+                    statement.setDouble(4, e.getSalary());
+                    if (e.getDepartment() != null) {
+                        statement.setInt(5, e.getDepartment().getId());
+                    } else {
+                        statement.setNull(5, Types.INTEGER);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (var keys = statement.getGeneratedKeys()) {
+                    for (int i = 0; i < employees.size() && keys.next(); i++) {
+                        employees.get(i).setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/* Выгрузка всех работников по департаментам напрямую через JDBC: строки читаются курсором только вперед
+ * и передаются обработчику по одной, без persistence context и без списка в памяти.
+ * Для MySQL в url указан useCursorFetch=true, поэтому результат читается с сервера порциями по EXPORT_FETCH_SIZE.
+ * Сортировка по имени департамента выполняется по уникальному индексу departments.name, поэтому первые строки
+ * отправляются клиенту без предварительной сортировки всей таблицы работников */
+@Repository
+@Timed("jdbc.repository.invocations")
+public class EmployeeExportRepository {
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String SELECT_EMPLOYEES_BY_DEPARTMENT =
+            "select e.id, e.name, e.surname, e.salary, d.name from employees e " +
+            "join departments d on d.id = e.department_id order by d.name, e.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EmployeeExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachEmployeeByDepartment(Consumer<EmployeeDTO> action) {
+
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SELECT_EMPLOYEES_BY_DEPARTMENT,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(new EmployeeDTO(rs.getInt(1), rs.getString(2),
+                rs.getString(3), rs.getObject(4, Double.class), rs.getString(5))));
+    }
+}
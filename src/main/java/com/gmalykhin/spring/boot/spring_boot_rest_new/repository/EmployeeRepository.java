@@ -1,23 +1,94 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
 
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 
 public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
 
+    /* Департамент работника загружается лениво. Методы, которые возвращают entity работника вместе с департаментом,
+     * загружают его тем же запросом (left join), а не отдельным SELECT на каждого работника */
+    @Override
+    @EntityGraph(attributePaths = "department")
+    List<Employee> findAll();
+
+    // Изменение и удаление работника используют версию и диапазон зарплат его департамента
+    @Override
+    @EntityGraph(attributePaths = "department")
+    Optional<Employee> findById(Integer id);
+
+    @EntityGraph(attributePaths = "department")
     List<Employee> findEmployeesByDepartmentId(int id);
 
+    // Страница работников департамента читается по индексу idx_employees_department (department_id, id) без сортировки
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO(e.id, e.name, " +
+            " e.surname, e.birthday, e.salary, e.version, d.id, d.departmentName, d.version) " +
+            "from Employee e join e.department d where d.id = ?1 and e.id > ?2 order by e.id")
+    List<EmployeeViewDTO> findDepartmentEmployeeViewsAfterId(int departmentId, int afterId, Pageable pageable);
+
+    // Перед удалением департамента: работники остаются без департамента
+    @Modifying
+    @Query("update Employee e set e.department = null, e.version = e.version + 1 where e.department.id = ?1")
+    int detachFromDepartment(int departmentId);
+
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO(e.id, e.name, " +
+            " e.surname, e.birthday, e.salary, e.version, d.id, d.departmentName, d.version) " +
+            "from Employee e left join e.department d")
+    List<EmployeeViewDTO> findAllEmployeeViews();
+
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO(e.id, e.name, " +
+            " e.surname, e.birthday, e.salary, e.version, d.id, d.departmentName, d.version) " +
+            "from Employee e left join e.department d where e.id = ?1")
+    Optional<EmployeeViewDTO> findEmployeeViewById(int id);
+
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO(e.id, e.name, " +
+            " e.surname, e.birthday, e.salary, e.version, d.id, d.departmentName, d.version) " +
+            "from Employee e left join e.department d where e.id > ?1 order by e.id")
+    List<EmployeeViewDTO> findEmployeeViewsAfterId(int afterId, Pageable pageable);
+
+    // С useCursorFetch=true в url MySQL Connector/J читает результат через серверный курсор порциями по fetch size
+    @Query("select e from Employee e left join fetch e.department order by e.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<Employee> streamAllEmployees();
+
+    // Зарплаты ниже minSalary и выше maxSalary приводятся к границам диапазона одним UPDATE.
+    // HINT_NATIVE_SPACES: native UPDATE меняет только employees, без него Hibernate сбросит весь кэш второго уровня
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "employees"))
+    @Query(value = "update employees set salary = case when salary < ?2 then ?2 else ?3 end, version = version + 1 " +
+            "where department_id = ?1 and (salary < ?2 or salary > ?3)", nativeQuery = true)
+    int clampSalariesToRange(int departmentId, Double minSalary, Double maxSalary);
+
     @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO(e.id, e.name, " +
             " e.surname, e.salary, e.department.departmentName) " +
             "from Employee e where e.birthday between ?1 and ?2 order by e.department.departmentName")
     List<EmployeeDTO> searchEmployee(LocalDate fDate, LocalDate sDate);
 
+    // Порядок birthday, id совпадает с порядком индекса idx_employees_birthday, первые строки приходят без сортировки
+    @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO(e.id, e.name, " +
+            " e.surname, e.salary, d.departmentName) " +
+            "from Employee e join e.department d where e.birthday between ?1 and ?2 order by e.birthday, e.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<EmployeeDTO> streamEmployeesBornBetween(LocalDate fDate, LocalDate sDate);
+
     @Query("select new com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO(e.id, e.name, " +
             " e.surname, e.salary, e.department.departmentName) " +
             "from Employee e join Department d on d.id = e.department.id order by e.department.departmentName")
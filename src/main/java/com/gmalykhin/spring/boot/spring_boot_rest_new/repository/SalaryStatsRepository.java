@@ -0,0 +1,87 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.SalaryHistogram;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/* Гистограммы зарплат по департаментам за один проход: один SELECT без сортировки и группировки,
+ * строки читаются курсором только вперед, и каждая зарплата сразу добавляется в гистограмму своего департамента.
+ * В памяти хранятся только гистограммы (по одной на департамент), а не зарплаты работников.
+ * left join нужен, чтобы департаменты без работников тоже попали в результат */
+@Repository
+@Timed("jdbc.repository.invocations")
+public class SalaryStatsRepository {
+
+    private static final int STATS_FETCH_SIZE = 1000;
+
+    private static final String SELECT_SALARIES = "select d.id, d.name, d.min_salary, d.max_salary, e.salary " +
+            "from departments d left join employees e on e.department_id = d.id";
+
+    private static final String SELECT_DEPARTMENT_SALARIES = SELECT_SALARIES + " where d.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SalaryStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Гистограммы всех департаментов, отсортированные по имени департамента
+    @Transactional(readOnly = true)
+    public List<SalaryHistogram> getSalaryHistograms(int bucketCount) {
+
+        var histograms = new HashMap<Integer, SalaryHistogram>();
+
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SELECT_SALARIES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STATS_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> addRow(histograms, rs, bucketCount));
+
+        return histograms.values().stream()
+                .sorted(Comparator.comparing(SalaryHistogram::getDepartmentName))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SalaryHistogram> getSalaryHistogram(int departmentId, int bucketCount) {
+
+        var histograms = new HashMap<Integer, SalaryHistogram>();
+
+        jdbcTemplate.query(SELECT_DEPARTMENT_SALARIES,
+                (RowCallbackHandler) rs -> addRow(histograms, rs, bucketCount), departmentId);
+
+        return Optional.ofNullable(histograms.get(departmentId));
+    }
+
+    private static void addRow(Map<Integer, SalaryHistogram> histograms, ResultSet rs, int bucketCount)
+                                                                                            throws SQLException {
+        var departmentId = rs.getInt(1);
+        var histogram = histograms.get(departmentId);
+
+        if (histogram == null) {
+            histogram = new SalaryHistogram(departmentId, rs.getString(2), rs.getDouble(3), rs.getDouble(4),
+                    bucketCount);
+            histograms.put(departmentId, histogram);
+        }
+
+        var salary = rs.getDouble(5);
+
+        if (!rs.wasNull()) {
+            histogram.add(salary);
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.service;
 
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CacheStatisticsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.*;
 
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MyService {
 
-    List<Employee> getAllEmployees();
+    List<EmployeeViewDTO> getAllEmployees();
+
+    List<EmployeeViewDTO> getEmployeesAfterId(int afterId, int limit);
+
+    void forEachEmployee(Consumer<Employee> action);
 
     void saveEmployee(Employee employee);
 
+    Employee createEmployee(Employee employee);
+
+    Employee updateEmployee(Employee employee, String ifMatch);
+
+    BulkImportReportDTO importEmployees(Iterator<Employee> employees);
+
     List<Department> getAllDepartments();
 
     Employee getEmployee(int id);
 
+    EmployeeViewDTO getEmployeeView(int id);
+
     void deleteEmployee(int id);
 
     Department getDepartment(int id);
@@ -25,17 +43,33 @@ public interface MyService {
 
     void saveDepartment(Department department);
 
+    Department createDepartment(Department department);
+
+    int updateDepartmentWithSalaryClamp(Department department, String ifMatch);
+
+    String getEmployeesVersionTag();
+
+    String getDepartmentsVersionTag();
+
+    String getAverageSalaryVersionTag();
+
+    CacheStatisticsDTO getDepartmentCacheStatistics();
+
     List<AverageSalaryByDepartmentDTO> getAverageSalaryByDepartment();
 
+    DepartmentSalaryStatsDTO getDepartmentSalaryStats(int departmentId);
+
+    List<DepartmentSalaryStatsDTO> getSalaryStatsByDepartment();
+
     List<EmployeeDTO> getAllEmployeesByDepartments();
 
+    void exportEmployeesByDepartment(Consumer<EmployeeDTO> action);
+
     List<EmployeeDTO> searchEmployee(LocalDate fDate, LocalDate sDate);
 
-    Employee checkEmployeesDepartmentFields (Employee employee);
+    void forEachEmployeeBornBetween(LocalDate fDate, LocalDate sDate, Consumer<EmployeeDTO> action);
 
     List<Employee> employeesInDepartment (int departmentId);
 
-    boolean checkEmpsSalaryIfMinOrMaxSalaryWasEdited(Department department);
-
-    void existenceOfTheDepartmentWithSuchNameInDB(String departmentName);
+    List<EmployeeViewDTO> getDepartmentEmployeesAfterId(int departmentId, int afterId, int limit);
 }
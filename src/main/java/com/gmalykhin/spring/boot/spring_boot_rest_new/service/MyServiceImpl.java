@@ -1,41 +1,344 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.service;
 
+import com.gmalykhin.spring.boot.spring_boot_rest_new.audit.AuditLog;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.audit.ChangeEvent;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentCache;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentSalaryAggregate;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentSalaryStatsCache;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.TableVersions;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportRowDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CacheStatisticsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldInPostMethod;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.DepartmentRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeBatchRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeExportRepository;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeRepository;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.*;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static com.gmalykhin.spring.boot.spring_boot_rest_new.util.Utils.*;
+
+// Таймер service.invocations с тегами class и method для каждого метода сервиса
 @Service
+@Timed("service.invocations")
 public class MyServiceImpl implements MyService {
 
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
     private final EmployeeRepository employeeRepository;
     private final DepartmentRepository departmentRepository;
+    private final EmployeeBatchRepository employeeBatchRepository;
+    private final EmployeeExportRepository employeeExportRepository;
+    private final DepartmentCache departmentCache;
+    private final DepartmentSalaryAggregate salaryAggregate;
+    private final DepartmentSalaryStatsCache salaryStatsCache;
+    private final TableVersions tableVersions;
+    private final AuditLog auditLog;
+    private final EntityManager entityManager;
+    private final Validator validator;
 
     @Autowired
-    public MyServiceImpl(EmployeeRepository employeeRepository, DepartmentRepository departmentRepository) {
+    public MyServiceImpl(EmployeeRepository employeeRepository, DepartmentRepository departmentRepository,
+                         EmployeeBatchRepository employeeBatchRepository,
+                         EmployeeExportRepository employeeExportRepository, DepartmentCache departmentCache,
+                         DepartmentSalaryAggregate salaryAggregate, DepartmentSalaryStatsCache salaryStatsCache,
+                         TableVersions tableVersions, AuditLog auditLog, EntityManager entityManager, Validator validator) {
         this.employeeRepository = employeeRepository;
         this.departmentRepository = departmentRepository;
+        this.employeeBatchRepository = employeeBatchRepository;
+        this.employeeExportRepository = employeeExportRepository;
+        this.departmentCache = departmentCache;
+        this.salaryAggregate = salaryAggregate;
+        this.salaryStatsCache = salaryStatsCache;
+        this.tableVersions = tableVersions;
+        this.auditLog = auditLog;
+        this.entityManager = entityManager;
+        this.validator = validator;
+    }
+
+    /* Методы чтения для GET запросов возвращают record из select new, а не entity:
+     * в persistence context ничего не попадает, поэтому нет снимков для dirty checking и flush.
+     * readOnly = true дополнительно переводит сессию в FlushMode.MANUAL и соединение JDBC в режим только чтения */
+    @Override
+    @Transactional(readOnly = true)
+    public List<EmployeeViewDTO> getAllEmployees() {
+        return employeeRepository.findAllEmployeeViews();
     }
 
     @Override
-    public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<EmployeeViewDTO> getEmployeesAfterId(int afterId, int limit) {
+        return employeeRepository.findEmployeeViewsAfterId(afterId, PageRequest.ofSize(limit));
     }
 
+    /* Построчный обход всех работников без загрузки всей таблицы в память.
+     * Каждый обработанный работник отсоединяется от persistence context (вместе с департаментом,
+     * т.к. у связи есть CascadeType.DETACH), поэтому потребление памяти не зависит от размера таблицы */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmployee(Consumer<Employee> action) {
+        try (var employees = employeeRepository.streamAllEmployees()) {
+            employees.forEach(e -> {
+                action.accept(e);
+                entityManager.detach(e);
+            });
+        }
+    }
+
+    /* Прежние зарплата и департамент работника нужны для пересчета средней зарплаты.
+     * При вызове из updateEmployee работник уже загружен в той же транзакции, и запроса к БД нет */
     @Override
     public void saveEmployee(Employee employee) {
+
+        var previous = employee.getId() == 0 ? null : employeeRepository.findById(employee.getId()).orElse(null);
+        var previousDepartment = previous == null ? null : previous.getDepartment();
+        var previousSalary = previous == null ? null : previous.getSalary();
+        var action = employee.getId() == 0 ? ChangeEvent.Action.CREATE : ChangeEvent.Action.UPDATE;
+
+        tableVersions.employeesChanged();
         employeeRepository.save(employee);
+        afterCommit(tableVersions::employeesChanged);
+        audit(ChangeEvent.employee(action, employee));
+
+        if (previousDepartment != null) {
+            var previousDepartmentId = previousDepartment.getId();
+
+            afterCommit(() -> salaryAggregate.removeEmployee(previousDepartmentId, previousSalary));
+            invalidateSalaryStats(previousDepartmentId);
+        }
+        // Работник без департамента (например, его департамент был удален) не входит в среднюю зарплату
+        if (employee.getDepartment() != null) {
+            addToSalaryAggregate(employee);
+            invalidateSalaryStats(employee.getDepartment().getId());
+        }
+    }
+
+    /* Методы записи для POST и PUT запросов: чтение, проверки и запись выполняются в одной транзакции
+     * на одном соединении из пула, а не в отдельной транзакции на каждый вызов репозитория.
+     * Количество SQL запросов каждого запроса записи проверяется в WriteStatementCountTest */
+    @Override
+    @Transactional
+    public Employee createEmployee(Employee employee) {
+
+        checkEmployeesDepartmentFields(employee);
+        checkEmployeesSalary(employee.getSalary(), employee.getDepartment());
+        employee.setName(initCap(employee.getName()));
+        employee.setSurname(initCap(employee.getSurname()));
+
+        saveEmployee(employee);
+        return employee;
     }
 
     @Override
+    @Transactional
+    public Employee updateEmployee(Employee employee, String ifMatch) {
+
+        var repoEmployee = getEmployee(employee.getId());
+        var repoDepartment = repoEmployee.getDepartment();
+
+        checkIfMatch(ifMatch, repoDepartment == null
+                ? employeeVersionTag(repoEmployee.getId(), repoEmployee.getVersion(), null, null)
+                : employeeVersionTag(repoEmployee.getId(), repoEmployee.getVersion(),
+                                                                repoDepartment.getId(), repoDepartment.getVersion()));
+
+        checkEntityFieldsIfNullThenFill(employee, repoEmployee);
+        employee.setVersion(repoEmployee.getVersion());
+
+        if (employee.getDepartment() != null) {
+
+            if (employee.getDepartment() != repoDepartment) {
+                checkEmployeesDepartmentFields(employee);
+            }
+
+            if (repoDepartment != null && employee.getDepartment().getId() != repoDepartment.getId()) {
+
+                // Если работнику поменяли департамент на новый и минимальная зарплата нового департамента
+                // больше, чем максимальная зарплата предыдущего департамента, то работнику устанавливается зарплата,
+                // соответствущая минимальной зарплпте нового департамента (например, повышение по службе)
+                if (employee.getDepartment().getMinSalary() > repoDepartment.getMaxSalary()
+                        && employee.getSalary() < employee.getDepartment().getMinSalary()) {
+                    employee.setSalary(employee.getDepartment().getMinSalary());
+                }
+
+                // Если работнику поменяли департамент на новый и максимальная зарплата нового департамента
+                // меньше, чем минимальная зарплата предыдущего департамента, то работнику устанавливается зарплата,
+                // соответствущая максимальной зарплпте нового департамента (например, понижение по службе)
+                else if (employee.getDepartment().getMaxSalary() < repoDepartment.getMinSalary()
+                            && employee.getSalary() > employee.getDepartment().getMaxSalary()) {
+                    employee.setSalary(employee.getDepartment().getMaxSalary());
+                }
+            }
+
+            checkEmployeesSalary(employee.getSalary(), employee.getDepartment());
+
+        } else if (Double.compare(employee.getSalary(), repoEmployee.getSalary()) != 0) {
+            throw new IncorrectFieldData("You can not edit the salary field because the department field is null");
+        }
+
+        employee.setName(initCap(employee.getName()));
+        employee.setSurname(initCap(employee.getSurname()));
+
+        // Проверка на то, были ли вообще произведены какие-либо изменения с редактируемым объектом
+        // Если да, то происходит запись в БД, иначе - возвращется редактируемый объект
+        if (!(employee.equals(repoEmployee))) {
+            saveEmployee(employee);
+        }
+        return employee;
+    }
+
+    /* Средняя зарплата и кэш департаментов изменяются только после коммита: откаченные изменения не попадают
+     * в DepartmentSalaryAggregate, а департамент, прочитанный из БД до коммита, не останется в DepartmentCache.
+     * Значения берутся сразу, а не при выполнении после коммита */
+    private void addToSalaryAggregate(Employee employee) {
+        var departmentId = employee.getDepartment().getId();
+        var departmentName = employee.getDepartment().getDepartmentName();
+        var salary = employee.getSalary();
+
+        afterCommit(() -> salaryAggregate.addEmployee(departmentId, departmentName, salary));
+    }
+
+    /* Массовый импорт работников. Каждая запись проверяется теми же правилами, что и при POST одного работника,
+     * корректные записи сохраняются пачками по IMPORT_BATCH_SIZE через JDBC batch.
+     * Ошибка в одной записи не прерывает импорт, а попадает в отчет по этой записи */
+    @Override
+    public BulkImportReportDTO importEmployees(Iterator<Employee> employees) {
+
+        var departments = departmentRepository.findAll().stream()
+                .collect(Collectors.toMap(Department::getId, Function.identity()));
+
+        var rows = new ArrayList<BulkImportRowDTO>();
+        var batch = new ArrayList<Employee>(IMPORT_BATCH_SIZE);
+        var batchRows = new ArrayList<Integer>(IMPORT_BATCH_SIZE);
+        var row = 0;
+        var imported = 0;
+
+        while (true) {
+            Employee employee;
+            try {
+                if (!employees.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // Входные данные не удается разобрать дальше этой записи
+                rows.add(BulkImportRowDTO.failed(++row, e.getMessage()));
+                break;
+            }
+
+            row++;
+            try {
+                employee = employees.next();
+                validateImportedEmployee(employee, departments);
+            } catch (RuntimeException e) {
+                rows.add(BulkImportRowDTO.failed(row, e.getMessage()));
+                continue;
+            }
+
+            batch.add(employee);
+            batchRows.add(row);
+
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                imported += saveImportBatch(batch, batchRows, rows);
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += saveImportBatch(batch, batchRows, rows);
+        }
+
+        rows.sort((r1, r2) -> Integer.compare(r1.row(), r2.row()));
+        return new BulkImportReportDTO(imported, rows.size() - imported, rows);
+    }
+
+    private int saveImportBatch(List<Employee> batch, List<Integer> batchRows, List<BulkImportRowDTO> rows) {
+
+        var size = batch.size();
+        try {
+            tableVersions.employeesChanged();
+            employeeBatchRepository.insertAll(batch);
+            afterCommit(tableVersions::employeesChanged);
+            for (int i = 0; i < size; i++) {
+                rows.add(BulkImportRowDTO.imported(batchRows.get(i), batch.get(i).getId()));
+                addToSalaryAggregate(batch.get(i));
+                audit(ChangeEvent.employee(ChangeEvent.Action.CREATE, batch.get(i)));
+            }
+            batch.stream().mapToInt(e -> e.getDepartment().getId()).distinct().forEach(this::invalidateSalaryStats);
+        } catch (RuntimeException e) {
+            for (var batchRow : batchRows) {
+                rows.add(BulkImportRowDTO.failed(batchRow, e.getMessage()));
+            }
+            size = 0;
+        }
+        batch.clear();
+        batchRows.clear();
+        return size;
+    }
+
+    // Те же проверки, что выполняются в EmployeeController.addNewEmployee для одного работника
+    private void validateImportedEmployee(Employee employee, Map<Integer, Department> departments) {
+
+        if (employee.getId() != 0) {
+            throw new IdFieldInPostMethod();
+        }
+
+        checkEntityFieldsIfNull(employee);
+
+        var jsonDepartment = employee.getDepartment();
+
+        if (jsonDepartment.getId() == 0) {
+            throw new IncorrectFieldData("You must write the department (only id field) for a new employee");
+        } else if (jsonDepartment.getDepartmentName() != null
+                || jsonDepartment.getMinSalary() != null
+                || jsonDepartment.getMaxSalary() != null) {
+            throw new IncorrectFieldData("Write only the id field for the department");
+        }
+
+        var department = departments.get(jsonDepartment.getId());
+
+        if (department == null) {
+            throw new NoSuchEntityFoundInDBException(jsonDepartment.getId());
+        }
+        employee.setDepartment(department);
+
+        var violations = validator.validate(employee);
+
+        if (!violations.isEmpty()) {
+            throw new IncorrectFieldData(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("\n", "", "\n")));
+        }
+
+        checkBirthday(employee.getBirthday());
+        checkEmployeesSalary(employee.getSalary(), employee.getDepartment());
+        employee.setName(initCap(employee.getName()));
+        employee.setSurname(initCap(employee.getSurname()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Department> getAllDepartments() {
         return departmentRepository.findAll();
     }
@@ -46,48 +349,192 @@ public class MyServiceImpl implements MyService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public EmployeeViewDTO getEmployeeView(int id) {
+        return employeeRepository.findEmployeeViewById(id).orElseThrow( () -> new NoSuchEntityFoundInDBException(id));
+    }
+
+    @Override
+    @Transactional
     public void deleteEmployee(int id) {
-        employeeRepository.deleteById(id);
+
+        var employee = getEmployee(id);
+
+        tableVersions.employeesChanged();
+        employeeRepository.delete(employee);
+        afterCommit(tableVersions::employeesChanged);
+        audit(ChangeEvent.deleted("employee", id));
+
+        if (employee.getDepartment() != null) {
+            var departmentId = employee.getDepartment().getId();
+            var salary = employee.getSalary();
+
+            afterCommit(() -> salaryAggregate.removeEmployee(departmentId, salary));
+            invalidateSalaryStats(departmentId);
+        }
     }
 
     @Override
     public Department getDepartment(int id) {
-        return departmentRepository.findById(id).orElseThrow( () -> new NoSuchEntityFoundInDBException(id));
+        return departmentCache.getById(id, departmentRepository::findById)
+                .orElseThrow( () -> new NoSuchEntityFoundInDBException(id));
     }
 
+    /* Работники удаляемого департамента остаются без департамента (department_id = null) до удаления департамента,
+     * иначе ссылка на несуществующий департамент нарушит внешний ключ */
     @Override
+    @Transactional
     public void deleteDepartment(int id) {
-        departmentRepository.deleteById(id);
+        tableVersions.departmentsChanged();
+
+        if (employeeRepository.detachFromDepartment(id) > 0) {
+            tableVersions.employeesChanged();
+            afterCommit(tableVersions::employeesChanged);
+        }
+        if (departmentRepository.deleteDepartmentById(id) == 0) {
+            throw new NoSuchEntityFoundInDBException(id);
+        }
+        afterCommit(tableVersions::departmentsChanged);
+        audit(ChangeEvent.deleted("department", id));
+        afterCommit(departmentCache::invalidateAll);
+        afterCommit(() -> salaryAggregate.removeDepartment(id));
+        invalidateSalaryStats(id);
     }
 
     @Override
     public void saveDepartment(Department department) {
+        var action = department.getId() == 0 ? ChangeEvent.Action.CREATE : ChangeEvent.Action.UPDATE;
+
+        tableVersions.departmentsChanged();
         departmentRepository.save(department);
+        afterCommit(tableVersions::departmentsChanged);
+        audit(ChangeEvent.department(action, department));
+        var departmentId = department.getId();
+        var departmentName = department.getDepartmentName();
+
+        afterCommit(departmentCache::invalidateAll);
+        afterCommit(() -> salaryAggregate.renameDepartment(departmentId, departmentName));
+        invalidateSalaryStats(departmentId);
+    }
+
+    @Override
+    @Transactional
+    public Department createDepartment(Department department) {
+        existenceOfTheDepartmentWithSuchNameInDB(department.getDepartmentName());
+        saveDepartment(department);
+        return department;
+    }
+
+    /* Изменение департамента и приведение зарплат его работников к новому диапазону minSalary - maxSalary.
+     * Возвращается количество работников, у которых была изменена salary.
+     * Изменение диапазона определяется до сохранения: если департамент был загружен из БД в этой транзакции,
+     * то repoDepartment - это managed entity, и после merge в нем уже новые значения */
+    @Override
+    @Transactional
+    public int updateDepartmentWithSalaryClamp(Department department, String ifMatch) {
+
+        var repoDepartment = getDepartment(department.getId());
+
+        checkIfMatch(ifMatch, departmentVersionTag(repoDepartment.getId(), repoDepartment.getVersion()));
+
+        checkEntityFieldsIfNullThenFill(department, repoDepartment);
+        department.setVersion(repoDepartment.getVersion());
+        department.setDepartmentName(department.getDepartmentName().toUpperCase());
+
+        if (!department.getDepartmentName().equals(repoDepartment.getDepartmentName())) {
+            existenceOfTheDepartmentWithSuchNameInDB(department.getDepartmentName());
+        }
+        checkDepartmentMinMaxSalary(department.getMinSalary(), department.getMaxSalary());
+
+        if (department.equals(repoDepartment)) {
+            return 0;
+        }
+
+        var salaryRangeWasEdited = Double.compare(repoDepartment.getMinSalary(), department.getMinSalary()) != 0
+                || Double.compare(repoDepartment.getMaxSalary(), department.getMaxSalary()) != 0;
+
+        saveDepartment(department);
+        return salaryRangeWasEdited ? clampSalariesToDepartmentRange(department) : 0;
+    }
+
+    @Override
+    public String getEmployeesVersionTag() {
+        return tableVersions.getEmployeesTag();
+    }
+
+    @Override
+    public String getDepartmentsVersionTag() {
+        return tableVersions.getDepartmentsTag();
+    }
+
+    @Override
+    public String getAverageSalaryVersionTag() {
+        return "a" + salaryAggregate.getVersion();
+    }
+
+    @Override
+    public CacheStatisticsDTO getDepartmentCacheStatistics() {
+        return departmentCache.getStatistics();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<EmployeeDTO> searchEmployee(LocalDate fDate, LocalDate sDate) {
         return employeeRepository.searchEmployee(fDate, sDate);
     }
 
+    // Записи - record, а не entity, поэтому в отличие от forEachEmployee отсоединять от persistence context нечего
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmployeeBornBetween(LocalDate fDate, LocalDate sDate, Consumer<EmployeeDTO> action) {
+        try (var employees = employeeRepository.streamEmployeesBornBetween(fDate, sDate)) {
+            employees.forEach(action);
+        }
+    }
+
     @Override
     public List<AverageSalaryByDepartmentDTO> getAverageSalaryByDepartment() {
-        return departmentRepository.getAverageSalaryByDepartment();
+        return salaryAggregate.getAverageSalaryByDepartment();
+    }
+
+    @Override
+    public DepartmentSalaryStatsDTO getDepartmentSalaryStats(int departmentId) {
+        return salaryStatsCache.getStats(departmentId)
+                .orElseThrow( () -> new NoSuchEntityFoundInDBException(departmentId));
+    }
+
+    @Override
+    public List<DepartmentSalaryStatsDTO> getSalaryStatsByDepartment() {
+        return salaryStatsCache.getAllStats();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<EmployeeDTO> getAllEmployeesByDepartments() {
         return employeeRepository.findEmployeesByDepartment();
     }
 
     @Override
+    public void exportEmployeesByDepartment(Consumer<EmployeeDTO> action) {
+        employeeExportRepository.forEachEmployeeByDepartment(action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Employee> employeesInDepartment (int departmentId) {
         return employeeRepository.findEmployeesByDepartmentId(departmentId);
     }
 
+    // Департамент берется из DepartmentCache: несуществующий департамент - 404, а не пустая страница
     @Override
-    public void existenceOfTheDepartmentWithSuchNameInDB(String departmentName) {
-        if (departmentRepository.getDepartmentByDepartmentName(departmentName) != null) {
+    @Transactional(readOnly = true)
+    public List<EmployeeViewDTO> getDepartmentEmployeesAfterId(int departmentId, int afterId, int limit) {
+        getDepartment(departmentId);
+        return employeeRepository.findDepartmentEmployeeViewsAfterId(departmentId, afterId, PageRequest.ofSize(limit));
+    }
+
+    private void existenceOfTheDepartmentWithSuchNameInDB(String departmentName) {
+        if (departmentCache.getByName(departmentName, departmentRepository::getDepartmentByDepartmentName).isPresent()) {
             throw new IncorrectFieldData("The value of the departmentName field must be unique");
         }
     }
@@ -96,11 +543,8 @@ public class MyServiceImpl implements MyService {
      * Для удобства ввода и во избежание ошибок ввода осталено только поле id у департамента,
      * остальные поля заполняются автоматически далее по коду.
      * Поэтому если указаны лишние поля, то выбрасывается исключение */
-    @Override
-    public Employee checkEmployeesDepartmentFields (Employee employee) {
-        var departmentId = employee.getDepartment().getId();
-
-        this.getDepartment(departmentId);
+    private Employee checkEmployeesDepartmentFields (Employee employee) {
+        var department = this.getDepartment(employee.getDepartment().getId());
         var jsonDepartment = employee.getDepartment();
 
         if (jsonDepartment.getDepartmentName() != null
@@ -108,35 +552,53 @@ public class MyServiceImpl implements MyService {
                 || jsonDepartment.getMaxSalary() != null) {
             throw new IncorrectFieldData("Write only the id field for the department");
         } else {
-            employee.setDepartment(getDepartment(departmentId));
+            employee.setDepartment(department);
         }
         return employee;
     }
 
-    /* Проверка если поменялось значение minSalary или maxSalary в department, то берется список
-     * employee в этом department и у каждого проверяется попадание salary в диапазон minSalary - maxSalary.
+    /* Если поменялось значение minSalary или maxSalary в department, то у всех employee
+     * этого department проверяется попадание salary в диапазон minSalary - maxSalary.
      * Если salary меньше, чем minSalary, тогда salary присваивается значение minSalary.
-     * Если salary больше, чем maxSalary, тогда salary присваивается значение maxSalary. */
-    @Override
-    public boolean checkEmpsSalaryIfMinOrMaxSalaryWasEdited(Department department) {
-
-        var employeesInDept = this.employeesInDepartment(department.getId());
-        var minSalaryFlag = false;
-        var maxSalaryFlag = false;
-
-        if (!employeesInDept.isEmpty()) {
-            for (var e : employeesInDept) {
-                if (e.getSalary() < department.getMinSalary()) {
-                    e.setSalary(department.getMinSalary());
-                    this.saveEmployee(e);
-                    minSalaryFlag = true;
-                } else if (e.getSalary() > department.getMaxSalary()) {
-                    e.setSalary(department.getMaxSalary());
-                    this.saveEmployee(e);
-                    maxSalaryFlag = true;
+     * Если salary больше, чем maxSalary, тогда salary присваивается значение maxSalary.
+     * Оба изменения выполняются одним UPDATE запросом, без загрузки работников. Перед ним выполняется flush,
+     * поэтому UPDATE департамента отправляется в БД раньше.
+     * Сумма зарплат департамента для средней зарплаты перечитывается после коммита */
+    private int clampSalariesToDepartmentRange(Department department) {
+
+        tableVersions.employeesChanged();
+        var count = employeeRepository.clampSalariesToRange(department.getId(),
+                department.getMinSalary(), department.getMaxSalary());
+
+        if (count > 0) {
+            afterCommit(tableVersions::employeesChanged);
+            afterCommit(() -> salaryAggregate.reloadDepartment(department.getId()));
+            audit(ChangeEvent.salaryClamp(department, count));
+        }
+        return count;
+    }
+
+    /* Статистика зарплат сбрасывается после коммита: если статистику посчитали по старым данным во время
+     * транзакции, то она будет сброшена, а подсчет, начатый до сброса, не попадет в кэш */
+    private void invalidateSalaryStats(int departmentId) {
+        afterCommit(() -> salaryStatsCache.invalidate(departmentId));
+    }
+
+    // Событие попадает в журнал изменений только после коммита, поэтому откаченные изменения в журнал не пишутся
+    private void audit(ChangeEvent event) {
+        afterCommit(() -> auditLog.publish(event));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
                 }
-            }
+            });
+        } else {
+            action.run();
         }
-        return minSalaryFlag || maxSalaryFlag;
     }
 }
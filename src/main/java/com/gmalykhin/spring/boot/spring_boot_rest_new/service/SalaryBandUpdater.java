@@ -0,0 +1,115 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.service;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.SalaryBandReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.SalaryBandResultDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/* Пакетное изменение диапазонов зарплат (minSalary - maxSalary) многих департаментов, например при пересмотре
+ * зарплат по всей компании. Каждый департамент изменяется вызовом MyService.updateDepartmentWithSalaryClamp
+ * в своей транзакции, департаменты обрабатываются параллельно в пуле из salary-bands.threads потоков.
+ * Каждая задача занимает соединение с БД на время транзакции, поэтому потоков должно быть заметно меньше,
+ * чем соединений в пуле. Очередь пула ограничена salary-bands.queue-capacity, при ее заполнении задачу выполняет
+ * поток запроса, так что одновременные пакетные запросы замедляются, а не накапливают задачи в памяти.
+ * Ошибка одного департамента не отменяет изменения остальных, а попадает в отчет */
+@Service
+@Timed("service.invocations")
+public class SalaryBandUpdater {
+
+    private final MyService myService;
+    private final Validator validator;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public SalaryBandUpdater(MyService myService, Validator validator,
+                             @Value("${salary-bands.threads:4}") int threads,
+                             @Value("${salary-bands.queue-capacity:1000}") int queueCapacity) {
+        this.myService = myService;
+        this.validator = validator;
+
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "salary-band-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public SalaryBandReportDTO updateSalaryBands(List<Department> departments) {
+
+        var ids = new HashSet<Integer>();
+        var results = new ArrayList<CompletableFuture<SalaryBandResultDTO>>(departments.size());
+
+        for (var department : departments) {
+            try {
+                validateSalaryBand(department);
+
+                // Два изменения одного департамента в одном пакете конфликтовали бы друг с другом по версии
+                if (!ids.add(department.getId())) {
+                    throw new IncorrectFieldData("The department is repeated in the request");
+                }
+            } catch (RuntimeException e) {
+                results.add(CompletableFuture.completedFuture(
+                        SalaryBandResultDTO.failed(department.getId(), e.getMessage())));
+                continue;
+            }
+            results.add(CompletableFuture.supplyAsync(() -> updateSalaryBand(department), executor));
+        }
+
+        var rows = results.stream().map(CompletableFuture::join).toList();
+        var updated = (int) rows.stream().filter(row -> row.error() == null).count();
+
+        return new SalaryBandReportDTO(updated, rows.size() - updated, rows);
+    }
+
+    private SalaryBandResultDTO updateSalaryBand(Department department) {
+        try {
+            return SalaryBandResultDTO.updated(department.getId(),
+                    myService.updateDepartmentWithSalaryClamp(department, null));
+        } catch (RuntimeException e) {
+            return SalaryBandResultDTO.failed(department.getId(), e.getMessage());
+        }
+    }
+
+    // В пакете меняется только диапазон зарплат, поэтому кроме id можно указать только minSalary и maxSalary
+    private void validateSalaryBand(Department department) {
+
+        if (department.getId() <= 0) {
+            throw new IncorrectFieldData("The id field must be > 0");
+        } else if (department.getDepartmentName() != null) {
+            throw new IncorrectFieldData("Write only the id, minSalary and maxSalary fields for the department");
+        } else if (department.getMinSalary() == null && department.getMaxSalary() == null) {
+            throw new IncorrectFieldData("Write the minSalary or maxSalary field for the department");
+        }
+
+        var violations = validator.validate(department);
+
+        if (!violations.isEmpty()) {
+            throw new IncorrectFieldData(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("\n", "", "\n")));
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
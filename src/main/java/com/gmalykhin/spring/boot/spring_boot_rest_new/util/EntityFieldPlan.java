@@ -0,0 +1,143 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.util;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/* План доступа к полям entity класса: для каждого объявленного в классе не примитивного поля
+ * заранее создаются getter и setter в виде лямбд через LambdaMetafactory.
+ * План строится один раз на класс и хранится в ClassValue, поэтому при обработке запроса
+ * не выполняются getDeclaredFields() и setAccessible(true), а поля читаются и пишутся прямыми вызовами.
+ * Используется в Utils.checkEntityFieldsIfNull и Utils.checkEntityFieldsIfNullThenFill */
+public final class EntityFieldPlan {
+
+    private static final ClassValue<EntityFieldPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected EntityFieldPlan computeValue(Class<?> type) {
+            return new EntityFieldPlan(type);
+        }
+    };
+
+    private final List<FieldAccessor> fields;
+
+    private EntityFieldPlan(Class<?> type) {
+
+        var lookup = MethodHandles.lookup();
+        var accessors = new ArrayList<FieldAccessor>();
+
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getType().isPrimitive() || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                accessors.add(new FieldAccessor(field.getName(),
+                        // Коллекции - это обратная сторона связи, они не заполняются при создании entity
+                        !Collection.class.isAssignableFrom(field.getType()),
+                        getter(lookup, type, field),
+                        setter(lookup, type, field)));
+            } catch (Throwable e) {
+                throw new IllegalStateException("Can not build accessors for the field " + field, e);
+            }
+        }
+        this.fields = List.copyOf(accessors);
+    }
+
+    public static EntityFieldPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    // Имена обязательных полей, значение которых null
+    public List<String> findNullRequiredFields(Object entity) {
+
+        List<String> nullFields = null;
+
+        for (var field : fields) {
+            if (field.required() && field.getter().apply(entity) == null) {
+                if (nullFields == null) {
+                    nullFields = new ArrayList<>();
+                }
+                nullFields.add(field.name());
+            }
+        }
+        return nullFields == null ? List.of() : nullFields;
+    }
+
+    // Поля entity со значением null заполняются значениями соответствующих полей source
+    public void fillNullFields(Object entity, Object source) {
+
+        for (var field : fields) {
+            if (field.getter().apply(entity) == null) {
+                field.setter().accept(entity, field.getter().apply(source));
+            }
+        }
+    }
+
+    private static Function<Object, Object> getter(MethodHandles.Lookup lookup, Class<?> type, Field field)
+                                                                                                throws Throwable {
+        MethodHandle handle;
+        try {
+            handle = lookup.findVirtual(type, "get" + capitalize(field.getName()), MethodType.methodType(field.getType()));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            handle = MethodHandles.privateLookupIn(type, lookup).unreflectGetter(field);
+            var fieldHandle = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return entity -> invoke(fieldHandle, entity);
+        }
+
+        @SuppressWarnings("unchecked")
+        var getter = (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(field.getType(), type))
+                .getTarget().invokeExact();
+        return getter;
+    }
+
+    private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Class<?> type, Field field)
+                                                                                                throws Throwable {
+        MethodHandle handle;
+        try {
+            handle = lookup.findVirtual(type, "set" + capitalize(field.getName()),
+                    MethodType.methodType(void.class, field.getType()));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            handle = MethodHandles.privateLookupIn(type, lookup).unreflectSetter(field);
+            var fieldHandle = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (entity, value) -> invoke(fieldHandle, entity, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        var setter = (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle,
+                        MethodType.methodType(void.class, type, field.getType()))
+                .getTarget().invokeExact();
+        return setter;
+    }
+
+    private static Object invoke(MethodHandle handle, Object... args) {
+        try {
+            return handle.invokeWithArguments(args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private record FieldAccessor(String name, boolean required,
+                                 Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+    }
+}
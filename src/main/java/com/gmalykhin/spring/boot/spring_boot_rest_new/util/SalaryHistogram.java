@@ -0,0 +1,108 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.util;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
+
+import java.util.ArrayList;
+
+/* Гистограмма зарплат одного департамента: диапазон minSalary - maxSalary делится на bucketCount равных интервалов.
+ * Заполняется за один проход по работникам (add), точно считаются количество, сумма, наименьшая и наибольшая зарплата.
+ * Медиана и p90 оцениваются по гистограмме линейной интерполяцией внутри интервала,
+ * погрешность не больше ширины интервала: (maxSalary - minSalary) / bucketCount.
+ * Гистограммы с одинаковыми диапазоном и количеством интервалов можно складывать (merge),
+ * например при подсчете по частям таблицы */
+public final class SalaryHistogram {
+
+    private final int departmentId;
+    private final String departmentName;
+    private final double minSalary;
+    private final double maxSalary;
+    private final double bucketWidth;
+    private final long[] counts;
+
+    private long count;
+    private double sum;
+    private double lowest = Double.POSITIVE_INFINITY;
+    private double highest = Double.NEGATIVE_INFINITY;
+
+    public SalaryHistogram(int departmentId, String departmentName, double minSalary, double maxSalary,
+                           int bucketCount) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("The bucket count must be > 0");
+        }
+        this.departmentId = departmentId;
+        this.departmentName = departmentName;
+        this.minSalary = minSalary;
+        this.maxSalary = maxSalary;
+        this.bucketWidth = Math.max(0, maxSalary - minSalary) / bucketCount;
+        this.counts = new long[bucketCount];
+    }
+
+    // Зарплата вне диапазона департамента (например, диапазон изменен в обход сервиса) попадает в крайний интервал
+    public void add(double salary) {
+
+        var bucket = bucketWidth == 0 ? 0 : (int) ((salary - minSalary) / bucketWidth);
+
+        counts[Math.max(0, Math.min(counts.length - 1, bucket))]++;
+        count++;
+        sum += salary;
+        lowest = Math.min(lowest, salary);
+        highest = Math.max(highest, salary);
+    }
+
+    public void merge(SalaryHistogram other) {
+
+        if (Double.compare(minSalary, other.minSalary) != 0 || Double.compare(maxSalary, other.maxSalary) != 0
+                || counts.length != other.counts.length) {
+            throw new IllegalArgumentException("Only histograms with the same salary range and bucket count can be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        lowest = Math.min(lowest, other.lowest);
+        highest = Math.max(highest, other.highest);
+    }
+
+    // Оценка значения, меньше которого зарплата у доли percentile работников (0..1), либо null если работников нет
+    public Double percentile(double percentile) {
+
+        if (count == 0) {
+            return null;
+        }
+
+        var rank = percentile * count;
+        var before = 0L;
+
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && before + counts[i] >= rank) {
+                var value = minSalary + (i + (rank - before) / counts[i]) * bucketWidth;
+                return round(Math.max(lowest, Math.min(highest, value)));
+            }
+            before += counts[i];
+        }
+        return highest;
+    }
+
+    public DepartmentSalaryStatsDTO toDTO() {
+
+        var buckets = new ArrayList<DepartmentSalaryStatsDTO.SalaryBucketDTO>(counts.length);
+
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new DepartmentSalaryStatsDTO.SalaryBucketDTO(round(minSalary + i * bucketWidth),
+                    i == counts.length - 1 ? maxSalary : round(minSalary + (i + 1) * bucketWidth), counts[i]));
+        }
+
+        return new DepartmentSalaryStatsDTO(departmentId, departmentName, minSalary, maxSalary, count,
+                count == 0 ? null : lowest, count == 0 ? null : highest, count == 0 ? null : round(sum / count),
+                percentile(0.5), percentile(0.9), buckets);
+    }
+
+    public String getDepartmentName() {
+        return departmentName;
+    }
+
+    private static double round(double value) {
+        return (double) Math.round(value * 100) / 100;
+    }
+}
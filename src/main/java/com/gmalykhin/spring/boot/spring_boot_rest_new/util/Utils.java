@@ -3,9 +3,11 @@ package com.gmalykhin.spring.boot.spring_boot_rest_new.util;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.BaseEntity;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.PreconditionFailed;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.validation.FieldError;
 
-import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -63,54 +65,132 @@ public final class Utils {
     // т.е. они null, тогда приводится список пропущенных полей, которые должны быть заполнены
     public static <T extends BaseEntity> void checkEntityFieldsIfNull(T entity) {
 
-        var entityFields = entity.getClass().getDeclaredFields();
-        var listOfNullFields = new StringBuilder();
+        var nullFields = EntityFieldPlan.of(entity.getClass()).findNullRequiredFields(entity);
 
-        for (Field field : entityFields) {
+        if (!nullFields.isEmpty()) {
+            throw new IncorrectFieldData("You missed the required field(s): " + String.join(", ", nullFields));
+        }
+    }
+
+    // Проверка если при изменении entity (PutMapping) какие-либо из полей были пропущены,
+    // т.е. они null, тогда они заполняются прежним значением
+    public static <T extends BaseEntity> void checkEntityFieldsIfNullThenFill(T entity, T repoEntity) {
+        EntityFieldPlan.of(entity.getClass()).fillNullFields(entity, repoEntity);
+    }
+
+    // Значение поля CSV: поле с запятой, кавычкой или переводом строки заключается в кавычки,
+    // кавычки внутри поля удваиваются. null - пустое поле
+    public static String csvField(Object value) {
+
+        if (value == null) {
+            return "";
+        }
+        var text = value.toString();
+
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    // Предпочитает ли клиент JSON другим форматам: заголовка Accept нет, либо у JSON (в том числе */*)
+    // качество (q) не меньше, чем у любого другого явно указанного формата
+    public static boolean prefersJson(String accept) {
+
+        if (accept == null) {
+            return true;
+        }
+
+        var jsonQuality = 0.0;
+        var otherQuality = 0.0;
+
+        try {
+            for (var mediaType : MediaType.parseMediaTypes(accept)) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    jsonQuality = Math.max(jsonQuality, mediaType.getQualityValue());
+                } else {
+                    otherQuality = Math.max(otherQuality, mediaType.getQualityValue());
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return jsonQuality > 0 && jsonQuality >= otherQuality;
+    }
 
-            field.setAccessible(true);
+    // Принимает ли клиент ответ, сжатый gzip: gzip или * в заголовке Accept-Encoding без q=0
+    public static boolean acceptsGzip(String acceptEncoding) {
 
-            if (!field.getType().isPrimitive()) {
-                try {
-                    if (field.get(entity) == null
-                            && !field.getName().equals("employee")) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (var value : acceptEncoding.split(",")) {
+            var parameters = value.split(";");
+            var coding = parameters[0].trim();
 
-                        listOfNullFields.append(field.getName()).append(", ");
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                    throw new RuntimeException(e);
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                var rejected = false;
+
+                for (int i = 1; i < parameters.length; i++) {
+                    var parameter = parameters[i].replace(" ", "");
+                    rejected |= parameter.matches("[qQ]=0(\\.0{0,3})?");
                 }
+                return !rejected;
             }
         }
+        return false;
+    }
+
+    // ETag работника в GET /api/employees/{id}: версии работника и его департамента,
+    // т.к. название департамента тоже входит в ответ
+    public static String employeeVersionTag(int id, int version, Integer departmentId, Integer departmentVersion) {
+        return "e" + id + "v" + version + (departmentId == null ? "" : "-d" + departmentId + "v" + departmentVersion);
+    }
+
+    // ETag департамента в GET /api/departments/{id}
+    public static String departmentVersionTag(int id, int version) {
+        return "d" + id + "v" + version;
+    }
+
+    // Проверка заголовка If-Match при PUT: если он указан, то одно из перечисленных значений должно совпадать
+    // с текущим ETag entity. Сравнение сильное, поэтому слабые значения (W/"...") не совпадают никогда
+    public static void checkIfMatch(String ifMatch, String currentTag) throws PreconditionFailed {
+
+        if (ifMatch == null) {
+            return;
+        }
+        for (var value : ifMatch.split(",")) {
+            value = value.trim();
 
-        if (!listOfNullFields.isEmpty()) {
-            throw new IncorrectFieldData("You missed the required field(s): "
-                    + listOfNullFields.substring(0, listOfNullFields.length()-2));
+            if (value.equals("*") || value.equals("\"" + currentTag + "\"")) {
+                return;
+            }
         }
+        throw new PreconditionFailed(currentTag);
     }
 
-    // Проверка если при изменении entity (PutMapping) какие-либо из полей были пропущены,
-    // т.е. они null, тогда они заполняются прежним значением
-    public static <T extends BaseEntity> void checkEntityFieldsIfNullThenFill(T entity, T repoEntity) {
+    // Проверка заголовка If-None-Match при GET: возвращает совпавший ETag из currentTags или null.
+    // Сравнение слабое (W/"..." совпадает с "..."), "*" совпадает с первым из currentTags
+    public static String matchIfNoneMatch(String ifNoneMatch, String... currentTags) {
+
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        for (var value : ifNoneMatch.split(",")) {
+            value = value.trim();
 
-        var entityFields = entity.getClass().getDeclaredFields();
-        var repoEntityFields = repoEntity.getClass().getDeclaredFields();
-
-        for (int i = 0; i < entityFields.length; i++) {
-            entityFields[i].setAccessible(true);
-            repoEntityFields[i].setAccessible(true);
-
-            if (!entityFields[i].getType().isPrimitive()) {
-                try {
-                    if (entityFields[i].get(entity) == null) {
-                        entityFields[i].set(entity, repoEntityFields[i].get(repoEntity));
-                    }
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                    throw new RuntimeException(e);
+            if (value.equals("*")) {
+                return currentTags[0];
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            for (var currentTag : currentTags) {
+                if (value.equals("\"" + currentTag + "\"")) {
+                    return currentTag;
                 }
             }
         }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/* Режим виртуальных потоков (только при сборке с профилем java21, включается профилем Spring virtual-threads).
+ * Каждый запрос Tomcat, а значит и вызовы MyServiceImpl и блокирующие обращения к БД через JDBC,
+ * выполняется в отдельном виртуальном потоке вместо потока из пула Tomcat (server.tomcat.threads.max).
+ * Количество одновременных обращений к БД ограничивается пулом соединений Hikari */
+@Configuration
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // Асинхронные запросы MVC (StreamingResponseBody) тоже выполняются в виртуальных потоках
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,21 @@
+-- Обновление существующей схемы MySQL (таблицы employees и departments) до текущей версии entity.
+-- В профиле MySQL Hibernate не создает и не изменяет таблицы (spring.jpa.hibernate.ddl-auto не задан),
+-- поэтому скрипт выполняется вручную один раз перед запуском новой версии приложения:
+--   mysql -u user1 -p my_db < src/main/resources/db/upgrade-mysql.sql
+-- Для H2 (тесты, профиль h2) те же изменения создаются Hibernate по аннотациям entity.
+
+-- Версия строки для оптимистической блокировки и ETag (BaseEntity.version)
+alter table employees add column version int not null default 0;
+alter table departments add column version int not null default 0;
+
+-- Поиск работников по дате рождения (Employee, idx_employees_birthday)
+create index idx_employees_birthday on employees (birthday);
+
+-- Постраничный список работников департамента (Employee, idx_employees_department)
+create index idx_employees_department on employees (department_id);
+
+-- Внешний ключ employees.department_id -> departments.id (Employee.department, fk_employees_department).
+-- Работники со ссылкой на несуществующий департамент остаются без департамента, иначе ключ не создать.
+-- Если внешний ключ на departments уже есть под другим именем, этот шаг нужно пропустить
+update employees set department_id = null where department_id not in (select id from departments);
+alter table employees add constraint fk_employees_department foreign key (department_id) references departments (id);
@@ -0,0 +1,96 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/* Общая основа интеграционных тестов REST API (профиль test, БД H2 в памяти): все наследники работают в одном
+ * контексте Spring и одной БД, поэтому данные создаются через API с уникальными именами департаментов.
+ * statistics - статистика Hibernate, сбрасывается тестом перед проверяемым запросом */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public abstract class AbstractApiIntegrationTest {
+
+    private static final AtomicInteger NAME_SUFFIX = new AtomicInteger();
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    protected Statistics statistics;
+
+    @BeforeEach
+    void initStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    protected MvcResult perform(RequestBuilder request, int expectedStatus) throws Exception {
+
+        var result = mockMvc.perform(request).andReturn();
+
+        assertEquals(expectedStatus, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        return result;
+    }
+
+    // Имя департамента может содержать только буквы и подчеркивание
+    protected static String nextDepartmentName() {
+
+        var suffix = NAME_SUFFIX.getAndIncrement();
+
+        return "DEPT_" + (char) ('A' + suffix / 676 % 26) + (char) ('A' + suffix / 26 % 26) + (char) ('A' + suffix % 26);
+    }
+
+    protected int createDepartment(String name, double minSalary, double maxSalary) throws Exception {
+
+        var json = "{\"departmentName\":\"" + name + "\",\"minSalary\":" + minSalary + ",\"maxSalary\":" + maxSalary + "}";
+        var result = perform(post("/api/departments").contentType(MediaType.APPLICATION_JSON).content(json), 201);
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asInt();
+    }
+
+    protected int createDepartment(String name) throws Exception {
+        return createDepartment(name, 1000, 5000);
+    }
+
+    protected int createDepartment(double minSalary, double maxSalary) throws Exception {
+        return createDepartment(nextDepartmentName(), minSalary, maxSalary);
+    }
+
+    protected int createDepartment() throws Exception {
+        return createDepartment(nextDepartmentName());
+    }
+
+    protected int createEmployee(int departmentId, double salary) throws Exception {
+
+        var json = "{\"name\":\"ivan\",\"surname\":\"sidorov\",\"birthday\":\"1990-01-01\",\"salary\":" + salary
+                + ",\"department\":{\"id\":" + departmentId + "}}";
+        var result = perform(post("/api/employees").contentType(MediaType.APPLICATION_JSON).content(json), 201);
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asInt();
+    }
+
+    protected int createEmployee(int departmentId) throws Exception {
+        return createEmployee(departmentId, 2000);
+    }
+}
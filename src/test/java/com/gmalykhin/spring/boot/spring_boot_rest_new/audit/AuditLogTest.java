@@ -0,0 +1,113 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.audit;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    @TempDir
+    private Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AuditLog auditLogFactory(Path file, int capacity) {
+        return new AuditLog(file, capacity, Duration.ZERO,
+                JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+                meterRegistry);
+    }
+
+    private Department departmentFactory(int id, String departmentName, Double minSalary, Double maxSalary) {
+
+        var department = new Department();
+
+        department.setId(id);
+        department.setDepartmentName(departmentName);
+        department.setMinSalary(minSalary);
+        department.setMaxSalary(maxSalary);
+
+        return department;
+    }
+
+    @Test
+    @DisplayName("flush_Events_Are_Appended_As_NDJSON")
+    void flush_Should_Append_One_Json_Line_Per_Event() throws Exception {
+
+        var file = directory.resolve("audit/changes.ndjson");
+        var auditLog = auditLogFactory(file, 100);
+
+        var employee = new Employee();
+        employee.setId(7);
+        employee.setName("Ivan");
+        employee.setSurname("Sidorov");
+        employee.setBirthday(LocalDate.parse("1995-04-17"));
+        employee.setSalary(1500D);
+        employee.setDepartment(departmentFactory(5, "SALES", 1000D, 5000D));
+
+        assertTrue(auditLog.publish(ChangeEvent.employee(ChangeEvent.Action.UPDATE, employee)));
+        auditLog.flush();
+        assertTrue(auditLog.publish(ChangeEvent.salaryClamp(departmentFactory(5, "SALES", 1200D, 5000D), 2)));
+        auditLog.flush();
+
+        var lines = Files.readAllLines(file);
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"entity\":\"employee\",\"action\":\"UPDATE\",\"id\":7,\"values\":" +
+                "{\"name\":\"Ivan\",\"surname\":\"Sidorov\",\"birthday\":\"1995-04-17\",\"salary\":1500.0,\"departmentId\":5}"),
+                lines.get(0));
+        assertTrue(lines.get(1).contains("\"action\":\"SALARY_CLAMP\",\"id\":5,\"values\":" +
+                "{\"minSalary\":1200.0,\"maxSalary\":5000.0,\"employeeCount\":2}"), lines.get(1));
+        assertEquals(2, meterRegistry.counter("audit.events.written").count());
+    }
+
+    @Test
+    @DisplayName("publish_Queue_Is_Full")
+    void publish_Should_Drop_Event_When_Queue_Is_Full() throws Exception {
+
+        var file = directory.resolve("changes.ndjson");
+        var auditLog = auditLogFactory(file, 2);
+
+        assertTrue(auditLog.publish(ChangeEvent.deleted("employee", 1)));
+        assertTrue(auditLog.publish(ChangeEvent.deleted("employee", 2)));
+        assertFalse(auditLog.publish(ChangeEvent.deleted("employee", 3)));
+        assertEquals(1, meterRegistry.counter("audit.events.dropped").count());
+
+        auditLog.flush();
+
+        assertTrue(auditLog.publish(ChangeEvent.deleted("employee", 3)));
+        auditLog.close();
+        assertEquals(3, Files.readAllLines(file).size());
+    }
+
+    @Test
+    @DisplayName("AuditLog_Directory_Is_Created_At_Startup")
+    void auditLog_Should_Create_Directory_When_It_Does_Not_Exist() {
+
+        auditLogFactory(directory.resolve("logs/audit/changes.ndjson"), 10);
+
+        assertTrue(Files.isDirectory(directory.resolve("logs/audit")));
+    }
+
+    @Test
+    @DisplayName("AuditLog_Directory_Is_Not_Writable")
+    void auditLog_Should_Fail_At_Startup_When_Directory_Can_Not_Be_Created() throws Exception {
+
+        // Вместо каталога журнала - обычный файл
+        Files.writeString(directory.resolve("audit"), "");
+
+        assertThrowsExactly(IllegalStateException.class,
+                () -> auditLogFactory(directory.resolve("audit/changes.ndjson"), 10));
+    }
+}
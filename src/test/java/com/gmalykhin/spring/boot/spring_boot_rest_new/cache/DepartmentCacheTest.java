@@ -0,0 +1,142 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CacheStatisticsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepartmentCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    // Время кэша (System.nanoTime()), которое тест передвигает вручную
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private DepartmentCache cacheFactory(int capacity) {
+        return new DepartmentCache(capacity, TTL, nanoTime::get);
+    }
+
+    private Department departmentFactory(int id, String departmentName, Double minSalary, Double maxSalary) {
+
+        var department = new Department();
+
+        department.setId(id);
+        department.setDepartmentName(departmentName);
+        department.setMinSalary(minSalary);
+        department.setMaxSalary(maxSalary);
+
+        return department;
+    }
+
+    @Test
+    @DisplayName("getById_Second_Call_Is_Served_From_Cache")
+    void getById_Should_Call_Loader_Once_When_Department_Is_Cached() {
+
+        var cache = cacheFactory(4);
+        var loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            var department = cache.getById(5, id -> {
+                loads.incrementAndGet();
+                return Optional.of(departmentFactory(id, "SALES", 850D, 5000D));
+            });
+            assertEquals(departmentFactory(5, "SALES", 850D, 5000D), department.orElseThrow());
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(new CacheStatisticsDTO(2, 1, 0, 1, 8), cache.getStatistics());
+    }
+
+    @Test
+    @DisplayName("getById_Returned_Copy_Does_Not_Change_Cache")
+    void getById_Should_Return_Copy_When_Department_Is_Cached() {
+
+        var cache = cacheFactory(4);
+        cache.getById(5, id -> Optional.of(departmentFactory(id, "SALES", 850D, 5000D)));
+
+        cache.getById(5, id -> Optional.empty()).orElseThrow().setDepartmentName("IT_PROG");
+
+        assertEquals("SALES", cache.getById(5, id -> Optional.empty()).orElseThrow().getDepartmentName());
+    }
+
+    @Test
+    @DisplayName("getByName_Missing_Department_Is_Cached")
+    void getByName_Should_Cache_Missing_Department_Until_Invalidation() {
+
+        var cache = cacheFactory(4);
+        var loads = new AtomicInteger();
+
+        assertTrue(cache.getByName("SALES", name -> { loads.incrementAndGet(); return null; }).isEmpty());
+        assertTrue(cache.getByName("SALES", name -> { loads.incrementAndGet(); return null; }).isEmpty());
+        assertEquals(1, loads.get());
+
+        cache.invalidateAll();
+
+        assertTrue(cache.getByName("SALES", name -> departmentFactory(3, name, 850D, 5000D)).isPresent());
+        assertEquals(2, cache.getStatistics().misses());
+    }
+
+    @Test
+    @DisplayName("getById_Least_Recently_Used_Department_Is_Evicted")
+    void getById_Should_Evict_Least_Recently_Used_When_Capacity_Is_Exceeded() {
+
+        var cache = cacheFactory(2);
+        var loads = new AtomicInteger();
+
+        for (var id : new int[]{1, 2, 1, 3, 1, 2}) {
+            cache.getById(id, i -> {
+                loads.incrementAndGet();
+                return Optional.of(departmentFactory(i, "DEPT", 850D, 5000D));
+            });
+        }
+
+        // 1, 2, 3 загружаются впервые, 2 вытесняется при добавлении 3 и загружается повторно
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getStatistics().evictions());
+    }
+
+    @Test
+    @DisplayName("getById_Department_Expires_After_Ttl")
+    void getById_Should_Load_Department_Again_When_Ttl_Has_Passed() {
+
+        var cache = cacheFactory(4);
+        var loads = new AtomicInteger();
+        IntFunction<Optional<Department>> loader = id -> {
+            loads.incrementAndGet();
+            return Optional.of(departmentFactory(id, "SALES", 850D, 5000D));
+        };
+
+        cache.getById(5, loader);
+        nanoTime.addAndGet(TTL.toNanos() - 1);
+        cache.getById(5, loader);
+        assertEquals(1, loads.get());
+
+        nanoTime.incrementAndGet();
+        cache.getById(5, loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(new CacheStatisticsDTO(1, 2, 0, 1, 8), cache.getStatistics());
+    }
+
+    @Test
+    @DisplayName("getByName_Missing_Department_Expires_After_Ttl")
+    void getByName_Should_Load_Department_Created_By_Other_Instance_When_Ttl_Has_Passed() {
+
+        var cache = cacheFactory(4);
+
+        assertTrue(cache.getByName("SALES", name -> null).isEmpty());
+
+        // Департамент создан другим экземпляром приложения: сброса кэша на этом экземпляре не было
+        nanoTime.addAndGet(TTL.toNanos());
+
+        assertTrue(cache.getByName("SALES", name -> departmentFactory(3, name, 850D, 5000D)).isPresent());
+    }
+}
@@ -0,0 +1,112 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryTotalsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.DepartmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentSalaryAggregateTest {
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    @InjectMocks
+    private DepartmentSalaryAggregate salaryAggregate;
+
+    @Test
+    @DisplayName("getAverageSalaryByDepartment_DB_Is_Read_Once")
+    void getAverageSalaryByDepartment_Should_Read_DB_Once_When_Called_Twice() {
+
+        when(departmentRepository.getSalaryTotalsByDepartment()).thenReturn(List.of(
+                new DepartmentSalaryTotalsDTO(5, "SALES", 5000D, 2L),
+                new DepartmentSalaryTotalsDTO(7, "IT", 9000D, 3L)));
+
+        var expected = List.of(new AverageSalaryByDepartmentDTO("IT", 3000D),
+                new AverageSalaryByDepartmentDTO("SALES", 2500D));
+
+        assertEquals(expected, salaryAggregate.getAverageSalaryByDepartment());
+        assertEquals(expected, salaryAggregate.getAverageSalaryByDepartment());
+        verify(departmentRepository, times(1)).getSalaryTotalsByDepartment();
+    }
+
+    @Test
+    @DisplayName("getAverageSalaryByDepartment_Employees_Are_Added_Removed_And_Moved")
+    void getAverageSalaryByDepartment_Should_Apply_Changes_When_Employees_Were_Edited() {
+
+        when(departmentRepository.getSalaryTotalsByDepartment()).thenReturn(List.of(
+                new DepartmentSalaryTotalsDTO(5, "SALES", 5000D, 2L)));
+        salaryAggregate.reconcile();
+
+        salaryAggregate.addEmployee(5, "SALES", 4000D);
+        salaryAggregate.addEmployee(7, "IT", 3000D);
+        salaryAggregate.removeEmployee(5, 2000D);
+        salaryAggregate.renameDepartment(7, "DEVELOPMENT");
+
+        assertEquals(List.of(new AverageSalaryByDepartmentDTO("DEVELOPMENT", 3000D),
+                        new AverageSalaryByDepartmentDTO("SALES", 3500D)),
+                salaryAggregate.getAverageSalaryByDepartment());
+
+        salaryAggregate.removeEmployee(7, 3000D);
+
+        assertEquals(List.of(new AverageSalaryByDepartmentDTO("SALES", 3500D)),
+                salaryAggregate.getAverageSalaryByDepartment());
+    }
+
+    @Test
+    @DisplayName("reloadDepartment_Department_Is_Replaced_From_DB")
+    void reloadDepartment_Should_Replace_Department_Totals_When_Salaries_Were_Updated() {
+
+        when(departmentRepository.getSalaryTotalsByDepartment()).thenReturn(List.of(
+                new DepartmentSalaryTotalsDTO(5, "SALES", 5000D, 2L),
+                new DepartmentSalaryTotalsDTO(7, "IT", 9000D, 3L)));
+        when(departmentRepository.getSalaryTotals(5)).thenReturn(new DepartmentSalaryTotalsDTO(5, "SALES", 6000D, 2L));
+        when(departmentRepository.getSalaryTotals(7)).thenReturn(null);
+        salaryAggregate.reconcile();
+
+        salaryAggregate.reloadDepartment(5);
+        salaryAggregate.reloadDepartment(7);
+
+        assertEquals(List.of(new AverageSalaryByDepartmentDTO("SALES", 3000D)),
+                salaryAggregate.getAverageSalaryByDepartment());
+    }
+
+    // Ответ, прочитанный во время перечитывания департамента, сохраняется со старой версией и не отдается после него
+    @Test
+    @DisplayName("getVersion_Body_Read_During_Change_Is_Serialized_Again")
+    void getVersion_Should_Change_After_Totals_When_Body_Is_Read_During_Change() {
+
+        var responseBodyCache = new ResponseBodyCache(new ObjectMapper(), new SimpleMeterRegistry(), 256);
+
+        when(departmentRepository.getSalaryTotalsByDepartment()).thenReturn(List.of(
+                new DepartmentSalaryTotalsDTO(5, "SALES", 5000D, 2L)));
+        // Одновременный GET между чтением сумм из БД и их заменой в памяти
+        when(departmentRepository.getSalaryTotals(5)).thenAnswer(invocation -> {
+            responseBodyCache.get("average-salary", "a" + salaryAggregate.getVersion(),
+                    salaryAggregate::getAverageSalaryByDepartment);
+            return new DepartmentSalaryTotalsDTO(5, "SALES", 6000D, 2L);
+        });
+        salaryAggregate.reconcile();
+
+        salaryAggregate.reloadDepartment(5);
+
+        var body = responseBodyCache.get("average-salary", "a" + salaryAggregate.getVersion(),
+                salaryAggregate::getAverageSalaryByDepartment);
+
+        assertEquals("[{\"departmentName\":\"SALES\",\"averageSalary\":3000.0}]", new String(body.json()));
+    }
+}
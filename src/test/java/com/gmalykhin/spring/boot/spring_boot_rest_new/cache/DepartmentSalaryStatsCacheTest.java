@@ -0,0 +1,80 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.SalaryStatsRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.util.SalaryHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentSalaryStatsCacheTest {
+
+    @Mock
+    private SalaryStatsRepository salaryStatsRepository;
+
+    private DepartmentSalaryStatsCache salaryStatsCache;
+
+    @BeforeEach
+    void setUp() {
+        salaryStatsCache = new DepartmentSalaryStatsCache(salaryStatsRepository, 10);
+    }
+
+    private SalaryHistogram histogramFactory(int departmentId, String departmentName, double salary) {
+
+        var histogram = new SalaryHistogram(departmentId, departmentName, 1000D, 2000D, 10);
+
+        histogram.add(salary);
+        return histogram;
+    }
+
+    @Test
+    @DisplayName("getStats_DB_Is_Read_Once_Until_Invalidate")
+    void getStats_Should_Read_DB_Once_Until_Department_Is_Invalidated() {
+
+        when(salaryStatsRepository.getSalaryHistogram(5, 10))
+                .thenAnswer(invocation -> Optional.of(histogramFactory(5, "SALES", 1500)));
+
+        assertEquals(1500D, salaryStatsCache.getStats(5).orElseThrow().medianSalary());
+        salaryStatsCache.getStats(5);
+        verify(salaryStatsRepository, times(1)).getSalaryHistogram(5, 10);
+
+        salaryStatsCache.invalidate(5);
+        salaryStatsCache.getStats(5);
+        verify(salaryStatsRepository, times(2)).getSalaryHistogram(5, 10);
+    }
+
+    @Test
+    @DisplayName("getAllStats_Department_Stats_Are_Filled_From_One_Pass")
+    void getAllStats_Should_Fill_Department_Stats_When_All_Departments_Were_Read() {
+
+        when(salaryStatsRepository.getSalaryHistograms(10)).thenReturn(List.of(
+                histogramFactory(7, "IT", 1200), histogramFactory(5, "SALES", 1500)));
+
+        assertEquals(2, salaryStatsCache.getAllStats().size());
+        assertEquals("SALES", salaryStatsCache.getStats(5).orElseThrow().departmentName());
+        salaryStatsCache.getAllStats();
+
+        verify(salaryStatsRepository, times(1)).getSalaryHistograms(10);
+        verify(salaryStatsRepository, times(0)).getSalaryHistogram(5, 10);
+    }
+
+    @Test
+    @DisplayName("getStats_Department_Is_Not_Found")
+    void getStats_Should_Return_Empty_When_Department_Is_Not_Found() {
+
+        when(salaryStatsRepository.getSalaryHistogram(9, 10)).thenReturn(Optional.empty());
+
+        assertTrue(salaryStatsCache.getStats(9).isEmpty());
+    }
+}
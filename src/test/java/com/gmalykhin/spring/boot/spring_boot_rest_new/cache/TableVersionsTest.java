@@ -0,0 +1,37 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableVersionsTest {
+
+    @Test
+    @DisplayName("getEmployeesTag_Changes_With_Both_Tables")
+    void getEmployeesTag_Should_Change_When_Employees_Or_Departments_Were_Changed() {
+
+        var tableVersions = new TableVersions();
+        var tag = tableVersions.getEmployeesTag();
+
+        tableVersions.employeesChanged();
+        var employeesChangedTag = tableVersions.getEmployeesTag();
+
+        tableVersions.departmentsChanged();
+
+        assertNotEquals(tag, employeesChangedTag);
+        assertNotEquals(employeesChangedTag, tableVersions.getEmployeesTag());
+    }
+
+    @Test
+    @DisplayName("getDepartmentsTag_Does_Not_Change_With_Employees")
+    void getDepartmentsTag_Should_Not_Change_When_Only_Employees_Were_Changed() {
+
+        var tableVersions = new TableVersions();
+        var tag = tableVersions.getDepartmentsTag();
+
+        tableVersions.employeesChanged();
+
+        assertEquals(tag, tableVersions.getDepartmentsTag());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Маршрутизация соединений между основной БД и репликой: две отдельные БД H2 в памяти,
+ * в каждой таблица replica_marker со своим значением, по которому видно, куда ушел запрос */
+@SpringBootTest(properties = {"spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "app.datasource.replica-urls=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.read-your-writes-window=PT0.3S"})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:replica-routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final String SELECT_MARKER = "select name from replica_marker";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        createMarker(PRIMARY_URL, "primary");
+        createMarker(REPLICA_URL, "replica");
+
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+
+        // Окно read-your-writes от записей предыдущих тестов
+        Thread.sleep(400);
+    }
+
+    private static void createMarker(String url, String name) throws SQLException {
+        try (var connection = DriverManager.getConnection(url, "sa", "");
+             var statement = connection.createStatement()) {
+            statement.execute("create table if not exists replica_marker (name varchar(20))");
+            statement.execute("delete from replica_marker");
+            statement.execute("insert into replica_marker values ('" + name + "')");
+        }
+    }
+
+    private String readMarker(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject(SELECT_MARKER, String.class));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions are routed to the replica")
+    void readOnly_Transaction_Should_Use_Replica() {
+        assertEquals("replica", readMarker(readOnly));
+        assertEquals("replica", readMarker(readOnly));
+    }
+
+    @Test
+    @DisplayName("Read-write transactions are routed to the primary")
+    void readWrite_Transaction_Should_Use_Primary() {
+        assertEquals("primary", readMarker(readWrite));
+    }
+
+    @Test
+    @DisplayName("Reads go to the primary during the read-your-writes window after a write, then back to the replica")
+    void readOnly_Transaction_Should_Use_Primary_Right_After_Write() throws Exception {
+
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update replica_marker set name = 'written'"));
+
+        assertEquals("written", readMarker(readOnly));
+
+        Thread.sleep(400);
+
+        assertEquals("replica", readMarker(readOnly));
+    }
+
+    @Test
+    @DisplayName("Statements outside a transaction are routed to the primary")
+    void statement_Without_Transaction_Should_Use_Primary() {
+        assertEquals("primary", jdbcTemplate.queryForObject(SELECT_MARKER, String.class));
+    }
+}
@@ -1,32 +1,65 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.ResponseBodyCache;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.config.SmileConfig;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.AverageSalaryByDepartmentDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentSalaryStatsDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldInPostMethod;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldIsZero;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.service.MyService;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.service.SalaryBandUpdater;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.DataBinder;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +68,15 @@ class DepartmentControllerTest {
     @Mock
     private MyService myService;
 
+    @Mock
+    private SalaryBandUpdater salaryBandUpdater;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Сжимаются ответы любого размера
+    @Spy
+    private ResponseBodyCache responseBodyCache = new ResponseBodyCache(objectMapper, new SimpleMeterRegistry(), 0);
+
     @InjectMocks
     private DepartmentController departmentController;
 
@@ -50,27 +92,149 @@ class DepartmentControllerTest {
         return department;
     }
 
+    private ServletWebRequest webRequestFactory(String ifNoneMatch) {
+        return webRequestFactory(ifNoneMatch, null, null);
+    }
+
+    // Standalone MockMvc с конвертерами JSON и конвертером Smile, добавленным SmileConfig
+    private MockMvc mockMvcWithSmile() {
+
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build())));
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("jacksonObjectMapperBuilder", Jackson2ObjectMapperBuilder.json());
+
+        new SmileConfig(beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class))
+                .extendMessageConverters(converters);
+
+        return MockMvcBuilders.standaloneSetup(departmentController)
+                .setMessageConverters(converters.toArray(HttpMessageConverter[]::new)).build();
+    }
+
+    private ServletWebRequest webRequestFactory(String ifNoneMatch, String accept, String acceptEncoding) {
+
+        var request = new MockHttpServletRequest("GET", "/");
+
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
 
     //------- showAllDepartmentsTest() -------------------------------------------------------------------------------------
     @Test
     @DisplayName("showAllDepartments_List_Is_Not_Empty")
     void showAllEmployees_Should_True_When_List_Of_Departments_Is_Not_Empty() {
 
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
         when(myService.getAllDepartments())
                 .thenReturn(List.of(departmentFactory(1, "SALES", 850D, 5000D)));
 
+        var webRequest = webRequestFactory(null, "application/x-jackson-smile", null);
+
         assertEquals(List.of(departmentFactory(1, "SALES", 850D, 5000D))
-                , departmentController.showAllDepartments());
+                , departmentController.showAllDepartments(webRequest).getBody());
+        assertEquals("\"1-d0\"", webRequest.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("showAllDepartments_Json_Is_Serialized_Once")
+    void showAllDepartments_Should_Return_Cached_Json_Until_Version_Is_Changed() throws IOException {
+
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
+        when(myService.getAllDepartments())
+                .thenReturn(List.of(departmentFactory(1, "SALES", 850D, 5000D)));
+
+        var expected = objectMapper.writeValueAsBytes(List.of(departmentFactory(1, "SALES", 850D, 5000D)));
+
+        Assertions.assertArrayEquals(expected,
+                (byte[]) departmentController.showAllDepartments(webRequestFactory(null)).getBody());
+
+        var gzipped = departmentController.showAllDepartments(webRequestFactory(null, "*/*", "gzip, deflate"));
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream((byte[]) gzipped.getBody()))) {
+            Assertions.assertArrayEquals(expected, gzip.readAllBytes());
+        }
+        verify(myService).getAllDepartments();
+
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d1");
+        departmentController.showAllDepartments(webRequestFactory(null));
+
+        verify(myService, times(2)).getAllDepartments();
+    }
+
+    @Test
+    @DisplayName("showAllDepartments_Not_Modified")
+    void showAllDepartments_Should_Return_Not_Modified_When_ETag_Matches() {
+
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
+
+        var response = departmentController.showAllDepartments(webRequestFactory("\"1-d0\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"1-d0\"", response.getHeaders().getETag());
+        verify(myService, never()).getAllDepartments();
+    }
+
+    @Test
+    @DisplayName("showAllDepartments_Smile_Not_Modified")
+    void showAllDepartments_Should_Return_Not_Modified_When_ETag_Matches_And_Client_Prefers_Smile() {
+
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
+
+        var webRequest = webRequestFactory("\"1-d0\"", "application/x-jackson-smile", null);
+
+        assertNull(departmentController.showAllDepartments(webRequest));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), webRequest.getResponse().getStatus());
+        verify(myService, never()).getAllDepartments();
+    }
+
+    // Сжатый и несжатый ответы - разные представления одной версии списка, поэтому у них разные сильные ETag
+    @Test
+    @DisplayName("showAllDepartments_Gzip_ETag")
+    void showAllDepartments_Should_Return_Different_ETags_For_Gzip_And_Identity() throws Exception {
+
+        var mockMvc = mockMvcWithSmile();
+
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
+        when(myService.getAllDepartments()).thenReturn(List.of(departmentFactory(1, "SALES", 850D, 5000D)));
+
+        var identity = mockMvc.perform(get("/api/departments")).andReturn().getResponse();
+        var gzip = mockMvc.perform(get("/api/departments").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+
+        assertEquals(List.of("\"1-d0\""), identity.getHeaders(HttpHeaders.ETAG));
+        assertEquals(List.of("\"1-d0-gzip\""), gzip.getHeaders(HttpHeaders.ETAG));
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        for (var ifNoneMatch : new String[]{"\"1-d0\"", "\"1-d0-gzip\"", "W/\"1-d0-gzip\""}) {
+            var notModified = mockMvc.perform(get("/api/departments").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch)).andReturn().getResponse();
+
+            assertEquals(304, notModified.getStatus(), ifNoneMatch);
+            assertEquals(0, notModified.getContentLength(), ifNoneMatch);
+        }
+        verify(myService).getAllDepartments();
     }
 
     @Test
     @DisplayName("showAllDepartments_List_Is_Empty")
     void showAllEmployees_Should_Throw_Exception_When_List_Of_Departments_Is_Empty() {
 
+        when(myService.getDepartmentsVersionTag()).thenReturn("1-d0");
         when(myService.getAllDepartments()).thenReturn(new ArrayList<>());
 
         assertThrowsExactly(NoSuchEntityFoundInDBException.class,
-                () -> departmentController.showAllDepartments());
+                () -> departmentController.showAllDepartments(webRequestFactory(null)));
     }
 
 
@@ -83,7 +247,7 @@ class DepartmentControllerTest {
                 .thenReturn(departmentFactory(1, "IT_PROG", 850D, 5000D));
 
         assertEquals(departmentFactory(1, "IT_PROG", 850D, 5000D)
-                , departmentController.getDepartment("3"));
+                , departmentController.getDepartment("3", webRequestFactory(null)));
     }
 
 //    @Test
@@ -99,7 +263,7 @@ class DepartmentControllerTest {
     void getDepartment_Should_Throw_Exception_When_Invalid_Id() {
 
         assertThrowsExactly(NumberFormatException.class,
-                () -> departmentController.getDepartment("invalid_id"));
+                () -> departmentController.getDepartment("invalid_id", webRequestFactory(null)));
     }
 
 
@@ -112,7 +276,34 @@ class DepartmentControllerTest {
                 .thenReturn(List.of(new AverageSalaryByDepartmentDTO("SALES", 3564D)));
 
         assertEquals(List.of(new AverageSalaryByDepartmentDTO("SALES", 3564D))
-                , departmentController.getAvgSalaryByDept());
+                , departmentController.getAvgSalaryByDept(webRequestFactory(null, "application/x-jackson-smile", null))
+                        .getBody());
+    }
+
+    @Test
+    @DisplayName("getAvgSalaryByDept_Smile_Or_Json")
+    void getAvgSalaryByDept_Should_Return_Smile_When_Client_Accepts_Smile() throws Exception {
+
+        var averageSalaries = List.of(new AverageSalaryByDepartmentDTO("IT", 4100D),
+                new AverageSalaryByDepartmentDTO("SALES", 3564D));
+        var mockMvc = mockMvcWithSmile();
+
+        when(myService.getAverageSalaryByDepartment()).thenReturn(averageSalaries);
+        when(myService.getAverageSalaryVersionTag()).thenReturn("a1");
+
+        var smile = mockMvc.perform(get("/api/departments/average-salary-by-department")
+                .accept("application/x-jackson-smile")).andReturn().getResponse();
+
+        assertEquals(200, smile.getStatus());
+        assertEquals("application/x-jackson-smile", smile.getContentType());
+        assertEquals(averageSalaries, new ObjectMapper(new SmileFactory()).readValue(smile.getContentAsByteArray(),
+                new TypeReference<List<AverageSalaryByDepartmentDTO>>() {}));
+
+        var json = mockMvc.perform(get("/api/departments/average-salary-by-department")).andReturn().getResponse();
+
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getContentType());
+        assertEquals(averageSalaries, objectMapper.readValue(json.getContentAsString(),
+                new TypeReference<List<AverageSalaryByDepartmentDTO>>() {}));
     }
 
     @Test
@@ -122,7 +313,75 @@ class DepartmentControllerTest {
         when(myService.getAverageSalaryByDepartment()).thenReturn(new ArrayList<>());
 
         assertThrowsExactly(NoSuchEntityFoundInDBException.class,
-                () -> departmentController.getAvgSalaryByDept());
+                () -> departmentController.getAvgSalaryByDept(webRequestFactory(null)));
+    }
+
+
+//------ getSalaryStatsTest() ------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("getDepartmentSalaryStats_Id_Is_Valid")
+    void getDepartmentSalaryStats_Should_True_When_Id_Is_Valid() {
+
+        var stats = new DepartmentSalaryStatsDTO(5, "SALES", 2000D, 6000D, 0, null, null, null, null, null, List.of());
+
+        when(myService.getDepartmentSalaryStats(5)).thenReturn(stats);
+
+        assertEquals(stats, departmentController.getDepartmentSalaryStats(" 5 "));
+    }
+
+    @Test
+    @DisplayName("getSalaryStatsByDepartment_List_Is_Empty")
+    void getSalaryStatsByDepartment_Should_Throw_Exception_When_List_Of_Result_Is_Empty() {
+
+        when(myService.getSalaryStatsByDepartment()).thenReturn(new ArrayList<>());
+
+        assertThrowsExactly(NoSuchEntityFoundInDBException.class,
+                () -> departmentController.getSalaryStatsByDepartment());
+    }
+
+
+//------ getDepartmentEmployeesTest() ----------------------------------------------------------------------------------
+    @Test
+    @DisplayName("getDepartmentEmployees_Page_Is_Full")
+    void getDepartmentEmployees_Should_Return_Next_Cursor_When_Page_Is_Full() {
+
+        var employees = List.of(
+                new EmployeeViewDTO(3, "Ivan", "Sidorov", LocalDate.of(1990, 1, 1), 2500D, 0, 5, "SALES", 0),
+                new EmployeeViewDTO(8, "Petr", "Ivanov", LocalDate.of(1991, 2, 2), 3000D, 0, 5, "SALES", 0));
+
+        when(myService.getDepartmentEmployeesAfterId(5, 0, 2)).thenReturn(employees);
+
+        var page = departmentController.getDepartmentEmployees(" 5 ", 0, 2);
+
+        assertEquals(employees, page.items());
+        assertEquals(8, page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("getDepartmentEmployees_Last_Page")
+    void getDepartmentEmployees_Should_Return_Null_Cursor_When_Page_Is_Not_Full() {
+
+        when(myService.getDepartmentEmployeesAfterId(5, 8, 2)).thenReturn(List.of());
+
+        assertNull(departmentController.getDepartmentEmployees("5", 8, 2).nextCursor());
+    }
+
+    @Test
+    @DisplayName("getDepartmentEmployees_Limit_Is_Invalid")
+    void getDepartmentEmployees_Should_Throw_Exception_When_Limit_Is_Invalid() {
+
+        assertThrowsExactly(IncorrectFieldData.class, () -> departmentController.getDepartmentEmployees("5", 0, 0));
+        assertThrowsExactly(IncorrectFieldData.class, () -> departmentController.getDepartmentEmployees("5", -1, 10));
+        verify(myService, never()).getDepartmentEmployeesAfterId(anyInt(), anyInt(), anyInt());
+    }
+
+
+//------ updateSalaryBandsTest() ---------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("updateSalaryBands_List_Is_Empty")
+    void updateSalaryBands_Should_Throw_Exception_When_List_Is_Empty() {
+
+        assertThrowsExactly(IncorrectFieldData.class, () -> departmentController.updateSalaryBands(List.of()));
     }
 
 
@@ -135,8 +394,7 @@ class DepartmentControllerTest {
 
         BindingResult bindingResult = new DataBinder(jsonDepartment).getBindingResult();
 
-        doNothing().when(myService).existenceOfTheDepartmentWithSuchNameInDB("SALES");
-        doNothing().when(myService).saveDepartment(any(Department.class));
+        when(myService.createDepartment(jsonDepartment)).thenReturn(jsonDepartment);
 
         assertEquals(new ResponseEntity<>(departmentFactory(0, "SALES", 1350D, 5500D)
                                                                                                    , HttpStatus.CREATED)
@@ -161,35 +419,29 @@ class DepartmentControllerTest {
     @DisplayName("updateDepartment_Edit_MinSalary_Input_Is_Valid")
     void updateDepartment_Should_True_When_Edit_MinSalary_Input_Is_Valid() {
 
-        var repoDepartment = departmentFactory(1, "SALES", 1350D, 5500D);
         var jsonDepartment = departmentFactory(1, "SALES", 1600D, 5500D);
         var info = "The department was successfully updated. One or more employees had their salary changed " +
                 "in accordance with the minimum and maximum salaries for this department";
 
         BindingResult bindingResult = new DataBinder(jsonDepartment).getBindingResult();
 
-        when(myService.getDepartment(anyInt())).thenReturn(repoDepartment);
-        when(myService.checkEmpsSalaryIfMinOrMaxSalaryWasEdited(any(Department.class))).thenReturn(true);
-        doNothing().when(myService).saveDepartment(any(Department.class));
+        when(myService.updateDepartmentWithSalaryClamp(jsonDepartment, null)).thenReturn(2);
 
-        assertEquals(info, departmentController.updateDepartment(jsonDepartment, bindingResult));
+        assertEquals(info, departmentController.updateDepartment(jsonDepartment, bindingResult, null).getBody());
     }
 
     @Test
     @DisplayName("updateDepartment_Edit_MaxSalary_Input_Is_Valid")
     void updateDepartment_Should_True_When_Edit_MaxSalary_Input_Is_Valid() {
 
-        var repoDepartment = departmentFactory(1, "SALES", 1600D, 5500D);
         var jsonDepartment = departmentFactory(1, "SALES", 1600D, 6000D);
         var info = "The department was successfully updated";
 
         BindingResult bindingResult = new DataBinder(jsonDepartment).getBindingResult();
 
-        when(myService.getDepartment(anyInt())).thenReturn(repoDepartment);
-        when(myService.checkEmpsSalaryIfMinOrMaxSalaryWasEdited(any(Department.class))).thenReturn(false);
-        doNothing().when(myService).saveDepartment(any(Department.class));
+        when(myService.updateDepartmentWithSalaryClamp(jsonDepartment, "\"d1v4\"")).thenReturn(0);
 
-        assertEquals(info, departmentController.updateDepartment(jsonDepartment, bindingResult));
+        assertEquals(info, departmentController.updateDepartment(jsonDepartment, bindingResult, "\"d1v4\"").getBody());
     }
 
     @Test
@@ -201,7 +453,7 @@ class DepartmentControllerTest {
         BindingResult bindingResult = new DataBinder(jsonDepartment).getBindingResult();
 
         assertThrowsExactly(IdFieldIsZero.class,
-                () -> departmentController.updateDepartment(jsonDepartment, bindingResult));
+                () -> departmentController.updateDepartment(jsonDepartment, bindingResult, null));
     }
 
     @Test
@@ -212,9 +464,10 @@ class DepartmentControllerTest {
 
         BindingResult bindingResult = new DataBinder(jsonDepartment).getBindingResult();
 
-        when(myService.getDepartment(anyInt())).thenReturn(null);
+        when(myService.updateDepartmentWithSalaryClamp(jsonDepartment, null))
+                .thenThrow(new NoSuchEntityFoundInDBException(3));
 
         assertThrowsExactly(NoSuchEntityFoundInDBException.class,
-                () -> departmentController.updateDepartment(jsonDepartment, bindingResult));
+                () -> departmentController.updateDepartment(jsonDepartment, bindingResult, null));
     }
-}
\ No newline at end of file
+}
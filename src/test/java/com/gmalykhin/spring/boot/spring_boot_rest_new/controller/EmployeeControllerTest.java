@@ -1,34 +1,62 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.config.SmileConfig;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.CursorPageDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentRefDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldInPostMethod;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IdFieldIsZero;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.PreconditionFailed;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.service.MyService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.DataBinder;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static java.time.LocalDate.parse;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static java.time.LocalDate.parse;
-import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 @ExtendWith(MockitoExtension.class)
 class EmployeeControllerTest {
@@ -36,6 +64,9 @@ class EmployeeControllerTest {
     @Mock
     private MyService myService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private EmployeeController employeeController;
 
@@ -65,29 +96,131 @@ class EmployeeControllerTest {
         return  department;
     }
 
+    private EmployeeViewDTO employeeViewFactory(int id, String name, String surname, LocalDate birthday, Double salary) {
+        return new EmployeeViewDTO(id, name, surname, birthday, salary, null, 0);
+    }
+
+    private ServletWebRequest webRequestFactory(String ifNoneMatch) {
+
+        var request = new MockHttpServletRequest("GET", "/");
+
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    // Standalone MockMvc с конвертерами JSON и конвертером Smile, добавленным SmileConfig
+    private MockMvc mockMvcWithSmile() {
+
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build())));
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("jacksonObjectMapperBuilder", Jackson2ObjectMapperBuilder.json());
+
+        new SmileConfig(beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class))
+                .extendMessageConverters(converters);
+
+        return MockMvcBuilders.standaloneSetup(employeeController)
+                .setMessageConverters(converters.toArray(HttpMessageConverter[]::new)).build();
+    }
+
 
 //------- showAllEmployeesTest() ---------------------------------------------------------------------------------------
     @Test
     @DisplayName("showAllEmployees_List_Is_Not_Empty")
     void showAllEmployees_Should_True_When_List_Of_Employees_Is_Not_Empty() {
 
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
         when(myService.getAllEmployees())
-                .thenReturn(List.of(employeeFactory(10,"Ivan","Ivanov"
-                                                        , parse("1975-05-12"), 2000D, null)));
+                .thenReturn(List.of(employeeViewFactory(10,"Ivan","Ivanov"
+                                                        , parse("1975-05-12"), 2000D)));
+
+        assertEquals(List.of(employeeViewFactory(10,"Ivan","Ivanov"
+                                                        , parse("1975-05-12"), 2000D))
+                , employeeController.showAllEmployees(webRequestFactory(null)));
+    }
+
+    @Test
+    @DisplayName("showAllEmployees_Not_Modified")
+    void showAllEmployees_Should_Return_Not_Modified_When_ETag_Matches() {
+
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
 
-        assertEquals(List.of(employeeFactory(10,"Ivan","Ivanov"
-                                                        , parse("1975-05-12"), 2000D, null))
-                , employeeController.showAllEmployees());
+        var webRequest = webRequestFactory("\"1-e0-d0\"");
+
+        assertNull(employeeController.showAllEmployees(webRequest));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), webRequest.getResponse().getStatus());
+        verify(myService, never()).getAllEmployees();
     }
 
     @Test
     @DisplayName("showAllEmployees_List_Is_Empty")
     void showAllEmployees_Should_Throw_Exception_When_List_Of_Employees_Is_Empty() {
 
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
         when(myService.getAllEmployees()).thenReturn(new ArrayList<>());
 
         assertThrowsExactly(NoSuchEntityFoundInDBException.class,
-                () -> employeeController.showAllEmployees());
+                () -> employeeController.showAllEmployees(webRequestFactory(null)));
+    }
+
+
+//------- showEmployeesPageTest() ---------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("showEmployeesPage_Page_Is_Full")
+    void showEmployeesPage_Should_Return_Next_Cursor_When_Page_Is_Full() {
+
+        var employees = List.of(employeeViewFactory(11, "Ivan", "Ivanov", parse("1975-05-12"), 2000D),
+                employeeViewFactory(14, "Anton", "Petrov", parse("1985-01-17"), 2500D));
+
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
+        when(myService.getEmployeesAfterId(10, 2)).thenReturn(employees);
+
+        assertEquals(new CursorPageDTO<>(employees, 14),
+                employeeController.showEmployeesPage(10, 2, webRequestFactory(null)));
+    }
+
+    @Test
+    @DisplayName("showEmployeesPage_Page_Is_Last")
+    void showEmployeesPage_Should_Return_Null_Cursor_When_Page_Is_Last() {
+
+        var employees = List.of(employeeViewFactory(11, "Ivan", "Ivanov", parse("1975-05-12"), 2000D));
+
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
+        when(myService.getEmployeesAfterId(10, 2)).thenReturn(employees);
+
+        assertEquals(new CursorPageDTO<>(employees, null),
+                employeeController.showEmployeesPage(10, 2, webRequestFactory(null)));
+    }
+
+    @Test
+    @DisplayName("showEmployeesPage_Invalid_Parameters")
+    void showEmployeesPage_Should_Throw_Exception_When_Parameters_Are_Invalid() {
+
+        assertThrowsExactly(IncorrectFieldData.class, () -> employeeController.showEmployeesPage(-1, 10, webRequestFactory(null)));
+        assertThrowsExactly(IncorrectFieldData.class, () -> employeeController.showEmployeesPage(0, 0, webRequestFactory(null)));
+        assertThrowsExactly(IncorrectFieldData.class, () -> employeeController.showEmployeesPage(0, 1001, webRequestFactory(null)));
+    }
+
+    @Test
+    @DisplayName("showEmployeesPage_After_Without_Limit")
+    void showEmployeesPage_Should_Use_Default_Limit_When_Only_After_Is_Given() throws Exception {
+
+        var employees = List.of(employeeViewFactory(11, "Ivan", "Ivanov", parse("1975-05-12"), 2000D));
+
+        when(myService.getEmployeesVersionTag()).thenReturn("1-e0-d0");
+        when(myService.getEmployeesAfterId(10, 100)).thenReturn(employees);
+
+        var response = mockMvcWithSmile().perform(get("/api/employees").param("after", "10")).andReturn().getResponse();
+
+        var page = objectMapper.readTree(response.getContentAsString());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(11, page.get("items").get(0).get("id").asInt());
+        assertTrue(page.get("nextCursor").isNull());
+        verify(myService, never()).getAllEmployees();
     }
 
 
@@ -96,13 +229,27 @@ class EmployeeControllerTest {
     @DisplayName("getEmployee_List_Is_Not_Empty")
     void getEmployee_Should_True_When_List_Is_Not_Empty() {
 
-        when(myService.getEmployee(anyInt()))
-                .thenReturn(employeeFactory(7, "Ivan", "Sidorov"
-                                                , parse("1974-05-14"), 1500D, null));
+        when(myService.getEmployeeView(anyInt()))
+                .thenReturn(employeeViewFactory(7, "Ivan", "Sidorov"
+                                                , parse("1974-05-14"), 1500D));
+
+        assertEquals(employeeViewFactory(7, "Ivan", "Sidorov"
+                                                    , parse("1974-05-14"), 1500D)
+                , employeeController.getEmployee("3", webRequestFactory(null)));
+    }
+
+    @Test
+    @DisplayName("getEmployee_Not_Modified")
+    void getEmployee_Should_Return_Not_Modified_When_ETag_Matches() {
+
+        when(myService.getEmployeeView(7))
+                .thenReturn(new EmployeeViewDTO(7, "Ivan", "Sidorov", parse("1974-05-14"), 1500D
+                        , new DepartmentRefDTO(5, "SALES", 2), 3));
+
+        var webRequest = webRequestFactory("\"e7v3-d5v2\"");
 
-        assertEquals(employeeFactory(7, "Ivan", "Sidorov"
-                                                    , parse("1974-05-14"), 1500D, null)
-                , employeeController.getEmployee("3"));
+        assertNull(employeeController.getEmployee("7", webRequest));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), webRequest.getResponse().getStatus());
     }
 
 //    @Test
@@ -118,7 +265,7 @@ class EmployeeControllerTest {
     void getEmployee_Should_Throw_Exception_When_Invalid_Id() {
 
         assertThrowsExactly(NumberFormatException.class,
-                () -> employeeController.getEmployee("invalid_id"));
+                () -> employeeController.getEmployee("invalid_id", webRequestFactory(null)));
     }
 
 
@@ -134,6 +281,31 @@ class EmployeeControllerTest {
                 , employeeController.getEmployeesByDepartments());
     }
 
+    @Test
+    @DisplayName("getEmployeesByDepartments_Smile_Or_Json")
+    void getEmployeesByDepartments_Should_Return_Smile_When_Client_Accepts_Smile() throws Exception {
+
+        var employees = List.of(new EmployeeDTO(10, "Ivan", "Ivanov", 2000D, "SALES"),
+                new EmployeeDTO(11, "Petr", "Petrov", 2500D, "SALES"));
+        var mockMvc = mockMvcWithSmile();
+
+        when(myService.getAllEmployeesByDepartments()).thenReturn(employees);
+
+        var smile = mockMvc.perform(get("/api/employees/by-department")
+                .accept("application/x-jackson-smile")).andReturn().getResponse();
+
+        assertEquals(200, smile.getStatus());
+        assertEquals("application/x-jackson-smile", smile.getContentType());
+        assertEquals(employees, new ObjectMapper(new SmileFactory())
+                .readValue(smile.getContentAsByteArray(), new TypeReference<List<EmployeeDTO>>() {}));
+
+        var json = mockMvc.perform(get("/api/employees/by-department")).andReturn().getResponse();
+
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, json.getContentType());
+        assertEquals(employees, objectMapper.readValue(json.getContentAsString(),
+                new TypeReference<List<EmployeeDTO>>() {}));
+    }
+
     @Test
     @DisplayName("getEmployeesByDepartments_List_Is_Empty")
     void getEmployeesByDepartments_Should_Throw_Exception_When_List_Of_EmployeeDTO_Is_Empty() {
@@ -288,6 +460,77 @@ class EmployeeControllerTest {
     }
 
 
+//------- streamEmployeesBornBetweenTest() -----------------------------------------------------------------------------
+    @Test
+    @DisplayName("streamEmployeesBornBetween_Dates_In_Reverse_Order")
+    void streamEmployeesBornBetween_Should_Write_Json_Array_When_Dates_Are_Reversed() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<EmployeeDTO> action = invocation.getArgument(2);
+            action.accept(new EmployeeDTO(10, "Ivan", "Ivanov", 2000D, "SALES"));
+            action.accept(new EmployeeDTO(12, "Anton", "Petrov", 2500D, "IT"));
+            return null;
+        }).when(myService).forEachEmployeeBornBetween(eq(parse("1971-12-15")), eq(parse("2001-08-05")), any());
+
+        var response = employeeController.streamEmployeesBornBetween("2001-08-05", " 1971-12-15 ");
+        var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals("[{\"id\":10,\"name\":\"Ivan\",\"surname\":\"Ivanov\",\"salary\":2000.0,\"departmentName\":\"SALES\"},"
+                + "{\"id\":12,\"name\":\"Anton\",\"surname\":\"Petrov\",\"salary\":2500.0,\"departmentName\":\"IT\"}]",
+                out.toString());
+    }
+
+//------- exportEmployeesTest() -----------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("exportEmployees_Format_Is_Ndjson")
+    void exportEmployees_Should_Write_One_Json_Line_Per_Employee_When_Format_Is_Ndjson() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<EmployeeDTO> action = invocation.getArgument(0);
+            action.accept(new EmployeeDTO(12, "Anton", "Petrov", 2500D, "IT"));
+            action.accept(new EmployeeDTO(10, "Ivan", "Ivanov", 2000D, "SALES"));
+            return null;
+        }).when(myService).exportEmployeesByDepartment(any());
+
+        var response = employeeController.exportEmployees("NDJSON");
+        var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals("{\"id\":12,\"name\":\"Anton\",\"surname\":\"Petrov\",\"salary\":2500.0,\"departmentName\":\"IT\"}\n"
+                + "{\"id\":10,\"name\":\"Ivan\",\"surname\":\"Ivanov\",\"salary\":2000.0,\"departmentName\":\"SALES\"}\n",
+                out.toString());
+    }
+
+    @Test
+    @DisplayName("exportEmployees_Format_Is_Csv")
+    void exportEmployees_Should_Write_Header_And_Rows_When_Format_Is_Csv() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<EmployeeDTO> action = invocation.getArgument(0);
+            action.accept(new EmployeeDTO(12, "Anton", "Petrov", 2500D, "IT"));
+            action.accept(new EmployeeDTO(10, "Ivan", "Ivanov", null, "SALES"));
+            return null;
+        }).when(myService).exportEmployeesByDepartment(any());
+
+        var response = employeeController.exportEmployees("csv");
+        var out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals("id,name,surname,salary,departmentName\r\n12,Anton,Petrov,2500.0,IT\r\n10,Ivan,Ivanov,,SALES\r\n",
+                out.toString());
+    }
+
+    @Test
+    @DisplayName("exportEmployees_Format_Is_Unknown")
+    void exportEmployees_Should_Throw_Exception_When_Format_Is_Unknown() {
+
+        assertThrowsExactly(IncorrectFieldData.class, () -> employeeController.exportEmployees("xml"));
+        verify(myService, never()).exportEmployeesByDepartment(any());
+    }
+
+
 //------- addNewEmployeeTest() -----------------------------------------------------------------------------------------
     @Test
     @DisplayName("addNewEmployee_Input_Is_Valid")
@@ -303,8 +546,7 @@ class EmployeeControllerTest {
         var employeeWithDepartment = employeeFactory(0, "Alexey", "Sidorov"
                                                          , parse("1995-04-17"), 1500D, department);
 
-        when(myService.checkEmployeesDepartmentFields(any(Employee.class))).thenReturn(employeeWithDepartment);
-        doNothing().when(myService).saveEmployee(any(Employee.class));
+        when(myService.createEmployee(jsonEmployee)).thenReturn(employeeWithDepartment);
 
         assertEquals(new ResponseEntity<>(employeeFactory(0, "Alexey", "Sidorov"
                                                 , parse("1995-04-17"), 1500D, department), HttpStatus.CREATED),
@@ -341,70 +583,20 @@ class EmployeeControllerTest {
 
 //------- updateEmployeeTest() -----------------------------------------------------------------------------------------
     @Test
-    @DisplayName("updateEmployee_Edit_Name_Input_Is_Valid")
-    void updateEmployee_Should_True_When_Edit_Name_Input_Is_Valid() {
+    @DisplayName("updateEmployee_Input_Is_Valid")
+    void updateEmployee_Should_True_When_Input_Is_Valid() {
 
         var department = departmentFactory(5, "IT_PROG", 1350D, 5500D);
 
-        var jsonEmployee = employeeFactory(7, "Ivan", "Sidorov", null, 1500D, department);
-
-        var repoEmployee = employeeFactory(7, "Alexey", "Sidorov"
-                , parse("1995-04-17"), 1500D, department);
+        var jsonEmployee = employeeFactory(7, "ivan", null, null, null, null);
 
         BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
 
-
-        when(myService.getEmployee(anyInt())).thenReturn(repoEmployee);
-        doNothing().when(myService).saveEmployee(any(Employee.class));
+        when(myService.updateEmployee(jsonEmployee, "\"e7v3-d5v2\""))
+                .thenReturn(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 1500D, department));
 
         assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 1500D, department)
-                , employeeController.updateEmployee(jsonEmployee, bindingResult));
-    }
-
-    @Test
-    @DisplayName("updateEmployee_New_Department_With_Big_MinSalary_Input_Is_Valid")
-    void updateEmployee_Should_True_When_New_Department_With_Big_MinSalary_Input_Is_Valid() {
-
-        var repoDepartment = departmentFactory(3, "SALES", 850D, 5000D);
-        var newDepartment = departmentFactory(5, "MANAGEMENT", 6000D, 10000D);
-
-        var jsonEmployee = employeeFactory(7, "Ivan", "Sidorov", null, null, newDepartment);
-
-        var repoEmployee = employeeFactory(7, "Ivan", "Sidorov"
-                , parse("1995-04-17"), 2000D, repoDepartment);
-
-        BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
-
-
-        when(myService.getEmployee(anyInt())).thenReturn(repoEmployee);
-        when(myService.checkEmployeesDepartmentFields(any(Employee.class))).thenReturn(jsonEmployee);
-        doNothing().when(myService).saveEmployee(any(Employee.class));
-
-        assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 6000D, newDepartment)
-                , employeeController.updateEmployee(jsonEmployee, bindingResult));
-    }
-
-    @Test
-    @DisplayName("updateEmployee_New_Department_With_Little_MaxSalary_Input_Is_Valid")
-    void updateEmployee_Should_True_When_New_Department_With_Little_MaxSalary_Input_Is_Valid() {
-
-        var repoDepartment = departmentFactory(5, "MANAGEMENT", 6000D, 10000D);
-        var newDepartment = departmentFactory(3, "SALES", 850D, 5000D);
-
-        var jsonEmployee = employeeFactory(7, "Ivan", "Sidorov", null, null, newDepartment);
-
-        var repoEmployee = employeeFactory(7, "Ivan", "Sidorov"
-                , parse("1995-04-17"), 6000D, repoDepartment);
-
-        BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
-
-
-        when(myService.getEmployee(anyInt())).thenReturn(repoEmployee);
-        when(myService.checkEmployeesDepartmentFields(any(Employee.class))).thenReturn(jsonEmployee);
-        doNothing().when(myService).saveEmployee(any(Employee.class));
-
-        assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 5000D, newDepartment)
-                , employeeController.updateEmployee(jsonEmployee, bindingResult));
+                , employeeController.updateEmployee(jsonEmployee, bindingResult, "\"e7v3-d5v2\""));
     }
 
     @Test
@@ -416,21 +608,7 @@ class EmployeeControllerTest {
         BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
 
         assertThrowsExactly(IdFieldIsZero.class,
-                () -> employeeController.updateEmployee(jsonEmployee, bindingResult));
-    }
-
-    @Test
-    @DisplayName("updateEmployee_No_Employee_Found_With_Such_Id")
-    void updateEmployee_Should_Throw_Exception_When_No_Employee_Found_With_Such_Id() {
-
-        var jsonEmployee = employeeFactory(3, "Ivan", "Sidorov", null, null, null);
-
-        BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
-
-        when(myService.getEmployee(anyInt())).thenReturn(null);
-
-        assertThrowsExactly(NoSuchEntityFoundInDBException.class,
-                () -> employeeController.updateEmployee(jsonEmployee, bindingResult));
+                () -> employeeController.updateEmployee(jsonEmployee, bindingResult, null));
     }
 
     @Test
@@ -438,29 +616,11 @@ class EmployeeControllerTest {
     void updateEmployee_Should_Throw_Exception_When_Edit_Birthday() {
 
         var jsonEmployee = employeeFactory(3, "Ivan", "Sidorov", parse("1980-03-17") , null, null);
-        var repoEmployee = employeeFactory(3, "Ivan", "Sidorov", parse("1975-05-15") , 1700D, null);
 
         BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
 
-        when(myService.getEmployee(anyInt())).thenReturn(repoEmployee);
-
         assertThrowsExactly(IncorrectFieldData.class,
-                () -> employeeController.updateEmployee(jsonEmployee, bindingResult));
-    }
-
-    @Test
-    @DisplayName("updateEmployee_Department_Is_Null_And_Edit_Salary")
-    void updateEmployee_Should_Throw_Exception_When_Department_Is_Null_And_Edit_Salary() {
-
-        var jsonEmployee = employeeFactory(3, "Ivan", "Sidorov", null , 2500D, null);
-        var repoEmployee = employeeFactory(3, "Ivan", "Sidorov", parse("1975-05-15") , 1700D, null);
-
-        BindingResult bindingResult = new DataBinder(jsonEmployee).getBindingResult();
-
-        when(myService.getEmployee(anyInt())).thenReturn(repoEmployee);
-
-        assertThrowsExactly(IncorrectFieldData.class,
-                () -> employeeController.updateEmployee(jsonEmployee, bindingResult));
+                () -> employeeController.updateEmployee(jsonEmployee, bindingResult, null));
+        verify(myService, never()).updateEmployee(any(Employee.class), any());
     }
 }
-
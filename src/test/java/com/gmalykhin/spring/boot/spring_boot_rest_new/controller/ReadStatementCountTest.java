@@ -0,0 +1,126 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.AbstractApiIntegrationTest;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.service.MyService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/* Количество SQL запросов списков работников (Hibernate statistics, БД H2 в памяти) не зависит от количества
+ * работников и департаментов: каждый список проверяется дважды - до и после добавления работников в новые департаменты */
+class ReadStatementCountTest extends AbstractApiIntegrationTest {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private MyService myService;
+
+    // Работники в нескольких новых департаментах: при N+1 количество запросов выросло бы вместе с ними
+    private void addEmployeesInNewDepartments() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            var departmentId = createDepartment();
+            createEmployee(departmentId);
+            createEmployee(departmentId);
+        }
+    }
+
+    private void assertStatements(long expectedStatements, ThrowingRunnable read) throws Exception {
+
+        addEmployeesInNewDepartments();
+        statistics.clear();
+        read.run();
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(), "SQL statements");
+
+        addEmployeesInNewDepartments();
+        statistics.clear();
+        read.run();
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(), "SQL statements after adding employees");
+    }
+
+    private void assertStatements(long expectedStatements, RequestBuilder request) throws Exception {
+        assertStatements(expectedStatements, () -> perform(request, 200));
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+//------- employeesTest() ----------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("showAllEmployees_One_Select")
+    void showAllEmployees_Should_Execute_One_Statement() throws Exception {
+        assertStatements(1, get("/api/employees"));
+    }
+
+    @Test
+    @DisplayName("showEmployeesPage_One_Select")
+    void showEmployeesPage_Should_Execute_One_Statement() throws Exception {
+        assertStatements(1, get("/api/employees").param("limit", "1000"));
+    }
+
+    @Test
+    @DisplayName("getEmployeesByDepartments_One_Select")
+    void getEmployeesByDepartments_Should_Execute_One_Statement() throws Exception {
+        assertStatements(1, get("/api/employees/by-department"));
+    }
+
+    @Test
+    @DisplayName("searchEmployee_One_Select")
+    void searchEmployee_Should_Execute_One_Statement() throws Exception {
+        assertStatements(1, get("/api/employees/search-for-employees-born-in/1980-01-01/2000-01-01"));
+    }
+
+    // Entity работников с департаментами: департамент загружается тем же запросом (@EntityGraph).
+    // В общей БД есть и работники удаленных департаментов (WriteStatementCountTest)
+    @Test
+    @DisplayName("findAll_Employees_With_Departments_One_Select")
+    void findAll_Should_Execute_One_Statement_When_Departments_Are_Read() throws Exception {
+        assertStatements(1, () -> employeeRepository.findAll().stream()
+                .map(Employee::getDepartment)
+                .filter(Objects::nonNull)
+                .forEach(d -> d.getDepartmentName()));
+    }
+
+    @Test
+    @DisplayName("employeesInDepartment_With_Department_One_Select")
+    void employeesInDepartment_Should_Execute_One_Statement_When_Department_Is_Read() throws Exception {
+
+        var departmentId = createDepartment();
+        createEmployee(departmentId);
+        createEmployee(departmentId);
+
+        assertStatements(1, () -> myService.employeesInDepartment(departmentId).stream()
+                .map(Employee::getDepartment)
+                .forEach(d -> d.getDepartmentName()));
+    }
+
+//------- departmentsTest() --------------------------------------------------------------------------------------------
+    // DepartmentCache сброшен созданием департаментов, но департамент есть в кэше второго уровня Hibernate,
+    // поэтому остается только запрос страницы
+    @Test
+    @DisplayName("getDepartmentEmployees_One_Select")
+    void getDepartmentEmployees_Should_Execute_One_Statement() throws Exception {
+
+        var departmentId = createDepartment();
+        createEmployee(departmentId);
+        createEmployee(departmentId);
+
+        assertStatements(1, get("/api/departments/" + departmentId + "/employees").param("limit", "10"));
+    }
+
+    @Test
+    @DisplayName("getDepartmentEmployees_Department_Is_Not_Found")
+    void getDepartmentEmployees_Should_Return_Not_Found_When_Department_Is_Not_Found() throws Exception {
+        perform(get("/api/departments/999999/employees"), 404);
+    }
+}
@@ -0,0 +1,155 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.controller;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.AbstractApiIntegrationTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/* Количество SQL запросов и транзакций каждого запроса записи REST API (Hibernate statistics, БД H2 в памяти).
+ * Данные для каждого теста создаются через API, статистика сбрасывается перед проверяемым запросом */
+class WriteStatementCountTest extends AbstractApiIntegrationTest {
+
+    private void assertStatements(long expectedStatements) {
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(), "SQL statements");
+        assertEquals(1, statistics.getTransactionCount(), "transactions");
+    }
+
+//------- employeesTest() ----------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("addNewEmployee_Select_Department_And_Insert")
+    void addNewEmployee_Should_Execute_Two_Statements_In_One_Transaction() throws Exception {
+
+        var departmentId = createDepartment(1000, 5000);
+        statistics.clear();
+
+        createEmployee(departmentId, 2000);
+
+        assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("updateEmployee_Edit_Name_Select_And_Update")
+    void updateEmployee_Should_Execute_Two_Statements_In_One_Transaction_When_Edit_Name() throws Exception {
+
+        var employeeId = createEmployee(createDepartment(1000, 5000), 2000);
+        statistics.clear();
+
+        perform(put("/api/employees").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + employeeId + ",\"name\":\"oleg\"}"), 200);
+
+        assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("updateEmployee_Edit_Department_Select_Both_And_Update")
+    void updateEmployee_Should_Execute_Three_Statements_In_One_Transaction_When_Edit_Department() throws Exception {
+
+        var employeeId = createEmployee(createDepartment(1000, 5000), 2000);
+        var newDepartmentId = createDepartment(1500, 6000);
+        statistics.clear();
+
+        perform(put("/api/employees").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + employeeId + ",\"department\":{\"id\":" + newDepartmentId + "}}"), 200);
+
+        assertStatements(3);
+    }
+
+    @Test
+    @DisplayName("deleteEmployee_Select_And_Delete")
+    void deleteEmployee_Should_Execute_Two_Statements_In_One_Transaction() throws Exception {
+
+        var employeeId = createEmployee(createDepartment(1000, 5000), 2000);
+        statistics.clear();
+
+        perform(delete("/api/employees/" + employeeId), 200);
+
+        assertStatements(2);
+    }
+
+//------- departmentsTest() --------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("addNewDepartment_Select_By_Name_And_Insert")
+    void addNewDepartment_Should_Execute_Two_Statements_In_One_Transaction() throws Exception {
+
+        statistics.clear();
+
+        createDepartment(1000, 5000);
+
+        assertStatements(2);
+    }
+
+    // Департамент, прочитанный при создании работников, берется из кэша второго уровня Hibernate без SELECT
+    @Test
+    @DisplayName("updateDepartment_Edit_MinSalary_Update_And_Clamp")
+    void updateDepartment_Should_Execute_Two_Statements_In_One_Transaction_When_Edit_MinSalary() throws Exception {
+
+        var departmentId = createDepartment(1000, 5000);
+        createEmployee(departmentId, 1200);
+        createEmployee(departmentId, 1300);
+        createEmployee(departmentId, 4000);
+        statistics.clear();
+
+        var result = perform(put("/api/departments").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + departmentId + ",\"minSalary\":1500}"), 201);
+
+        assertStatements(2);
+        assertEquals("The department was successfully updated. One or more employees had their salary changed " +
+                "in accordance with the minimum and maximum salaries for this department",
+                result.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("deleteDepartment_Detach_Employees_And_Delete")
+    void deleteDepartment_Should_Execute_Two_Statements_In_One_Transaction() throws Exception {
+
+        var departmentId = createDepartment(1000, 5000);
+        createEmployee(departmentId, 2000);
+        createEmployee(departmentId, 3000);
+        statistics.clear();
+
+        perform(delete("/api/departments/" + departmentId), 200);
+
+        assertStatements(2);
+    }
+
+    // После удаления департамента его работники остаются без департамента и должны изменяться как обычно
+    @Test
+    @DisplayName("updateEmployee_Department_Was_Deleted_Select_And_Update")
+    void updateEmployee_Should_Execute_Two_Statements_When_Department_Was_Deleted() throws Exception {
+
+        var departmentId = createDepartment(1000, 5000);
+        var employeeId = createEmployee(departmentId, 2000);
+        perform(delete("/api/departments/" + departmentId), 200);
+        statistics.clear();
+
+        perform(put("/api/employees").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + employeeId + ",\"name\":\"oleg\"}"), 200);
+
+        assertStatements(2);
+    }
+
+    @Test
+    @DisplayName("updateSalaryBands_One_Transaction_Per_Department")
+    void updateSalaryBands_Should_Execute_One_Transaction_For_Each_Department() throws Exception {
+
+        var firstId = createDepartment(1000, 5000);
+        var secondId = createDepartment(2000, 6000);
+        createEmployee(firstId, 1200);
+        createEmployee(secondId, 5500);
+        statistics.clear();
+
+        var result = perform(put("/api/departments/salary-bands").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\":" + firstId + ",\"minSalary\":1500},{\"id\":" + secondId + ",\"maxSalary\":5000},"
+                        + "{\"id\":" + firstId + ",\"maxSalary\":4000}]"), 200);
+
+        assertEquals(2, statistics.getTransactionCount(), "transactions");
+        assertEquals("{\"updated\":2,\"failed\":1,\"departments\":[{\"id\":" + firstId
+                + ",\"clampedEmployees\":1,\"error\":null},{\"id\":" + secondId + ",\"clampedEmployees\":1,\"error\":null},"
+                + "{\"id\":" + firstId + ",\"clampedEmployees\":null,\"error\":\"The department is repeated in the request\"}]}",
+                result.getResponse().getContentAsString());
+    }
+}
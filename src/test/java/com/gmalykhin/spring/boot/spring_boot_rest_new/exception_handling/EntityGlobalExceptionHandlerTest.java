@@ -0,0 +1,102 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityGlobalExceptionHandlerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EntityGlobalExceptionHandler handler = new EntityGlobalExceptionHandler(meterRegistry, objectMapper);
+
+    private static WebRequest request(String accept) {
+
+        var request = new MockHttpServletRequest();
+
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        return new ServletWebRequest(request);
+    }
+
+//------- handleExceptionTest() ----------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("handleException_Empty_List_Prebuilt_Json")
+    void handleException_Should_Return_Prebuilt_Json_For_Constant_Message() throws Exception {
+
+        var response = handler.handleException(new NoSuchEntityFoundInDBException(), request("application/json"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(objectMapper.writeValueAsBytes(
+                new ExceptionWrapper(NoSuchEntityFoundInDBException.NO_ENTITIES_MESSAGE)), (byte[]) response.getBody());
+    }
+
+    @Test
+    @DisplayName("handleException_Same_Prebuilt_Body_For_Every_Request")
+    void handleException_Should_Not_Serialize_Constant_Message_Again() {
+
+        var first = handler.handleException(new IdFieldInPostMethod(), request(null));
+        var second = handler.handleException(new IdFieldInPostMethod(), request("*/*"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, second.getStatusCode());
+        assertSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    @DisplayName("handleException_Message_With_Id")
+    void handleException_Should_Return_Wrapper_For_Variable_Message() {
+
+        var response = handler.handleException(new NoSuchEntityFoundInDBException(7), request("application/json"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("There is no such raw with ID = 7 in DB", ((ExceptionWrapper) response.getBody()).getInfo());
+    }
+
+    @Test
+    @DisplayName("handleException_Smile_Client")
+    void handleException_Should_Return_Wrapper_When_Client_Prefers_Other_Format() {
+
+        var response = handler.handleException(new NoSuchEntityFoundInDBException(),
+                request("application/x-jackson-smile"));
+
+        assertNull(response.getHeaders().getContentType());
+        assertEquals(NoSuchEntityFoundInDBException.NO_ENTITIES_MESSAGE,
+                ((ExceptionWrapper) response.getBody()).getInfo());
+    }
+
+    @Test
+    @DisplayName("handleException_Counts_Exceptions_By_Type")
+    void handleException_Should_Increment_Counter_Of_Exception_Type() {
+
+        handler.handleException(new NoSuchEntityFoundInDBException(), request(null));
+        handler.handleException(new NoSuchEntityFoundInDBException(3), request(null));
+        handler.handleException(new IncorrectFieldData("Wrong name"), request(null));
+
+        assertEquals(2, meterRegistry.counter("api.exceptions", "exception", "NoSuchEntityFoundInDBException").count());
+        assertEquals(1, meterRegistry.counter("api.exceptions", "exception", "IncorrectFieldData").count());
+    }
+
+//------- stacklessExceptionsTest() ------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("Domain_Exceptions_Without_Stack_Trace")
+    void domainExceptions_Should_Not_Fill_Stack_Trace() {
+
+        var employee = new Employee();
+
+        for (var exception : new RuntimeException[] {new NoSuchEntityFoundInDBException(), new IncorrectFieldData("x"),
+                new IdFieldIsZero(employee), new IdFieldInPostMethod(), new PreconditionFailed("\"1\"")}) {
+            assertEquals(0, exception.getStackTrace().length, exception.getClass().getSimpleName());
+        }
+    }
+}
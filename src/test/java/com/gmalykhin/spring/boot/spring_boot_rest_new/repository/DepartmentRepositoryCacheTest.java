@@ -0,0 +1,112 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.repository;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.AbstractApiIntegrationTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/* Кэш второго уровня Hibernate для департаментов (БД H2 в памяти): повторное чтение без запроса к БД
+ * и актуальность кэша после изменения и удаления департамента через REST API */
+class DepartmentRepositoryCacheTest extends AbstractApiIntegrationTest {
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+//------- findByIdTest() -----------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("findById_Read_From_Second_Level_Cache")
+    void findById_Should_Not_Execute_Statements_When_Department_Is_Cached() throws Exception {
+
+        var departmentId = createDepartment();
+        departmentRepository.findById(departmentId);
+        statistics.clear();
+
+        assertTrue(departmentRepository.findById(departmentId).isPresent());
+
+        assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements");
+        assertEquals(1, statistics.getSecondLevelCacheHitCount(), "second level cache hits");
+    }
+
+    @Test
+    @DisplayName("findById_Department_Was_Updated")
+    void findById_Should_Return_New_Values_After_Update() throws Exception {
+
+        var departmentId = createDepartment();
+        var newName = nextDepartmentName();
+        departmentRepository.findById(departmentId);
+
+        perform(put("/api/departments").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + departmentId + ",\"departmentName\":\"" + newName + "\",\"maxSalary\":6000}"), 201);
+        statistics.clear();
+
+        var department = departmentRepository.findById(departmentId).orElseThrow();
+
+        assertEquals(newName, department.getDepartmentName());
+        assertEquals(6000D, department.getMaxSalary());
+        assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements");
+    }
+
+    @Test
+    @DisplayName("findById_Department_Was_Deleted")
+    void findById_Should_Return_Empty_After_Delete() throws Exception {
+
+        var departmentId = createDepartment();
+        departmentRepository.findById(departmentId);
+
+        perform(delete("/api/departments/" + departmentId), 200);
+
+        assertTrue(departmentRepository.findById(departmentId).isEmpty());
+    }
+
+//------- getDepartmentByDepartmentNameTest() --------------------------------------------------------------------------
+    @Test
+    @DisplayName("getDepartmentByDepartmentName_Read_From_Query_Cache")
+    void getDepartmentByDepartmentName_Should_Not_Execute_Statements_When_Query_Is_Cached() throws Exception {
+
+        var name = nextDepartmentName();
+        var departmentId = createDepartment(name);
+        departmentRepository.getDepartmentByDepartmentName(name);
+        statistics.clear();
+
+        assertEquals(departmentId, departmentRepository.getDepartmentByDepartmentName(name).getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount(), "SQL statements");
+        assertEquals(1, statistics.getQueryCacheHitCount(), "query cache hits");
+    }
+
+    @Test
+    @DisplayName("getDepartmentByDepartmentName_Department_Was_Renamed")
+    void getDepartmentByDepartmentName_Should_Follow_Rename() throws Exception {
+
+        var oldName = nextDepartmentName();
+        var newName = nextDepartmentName();
+        var departmentId = createDepartment(oldName);
+        departmentRepository.getDepartmentByDepartmentName(oldName);
+        assertNull(departmentRepository.getDepartmentByDepartmentName(newName));
+
+        perform(put("/api/departments").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + departmentId + ",\"departmentName\":\"" + newName + "\"}"), 201);
+
+        assertNull(departmentRepository.getDepartmentByDepartmentName(oldName));
+        assertEquals(departmentId, departmentRepository.getDepartmentByDepartmentName(newName).getId());
+    }
+
+    @Test
+    @DisplayName("findAll_Department_Was_Deleted")
+    void findAll_Should_Not_Contain_Deleted_Department() throws Exception {
+
+        var departmentId = createDepartment();
+        assertTrue(departmentRepository.findAll().stream().anyMatch(d -> d.getId() == departmentId));
+
+        perform(delete("/api/departments/" + departmentId), 200);
+
+        assertTrue(departmentRepository.findAll().stream().noneMatch(d -> d.getId() == departmentId));
+    }
+}
@@ -1,25 +1,52 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.service;
 
+import com.gmalykhin.spring.boot.spring_boot_rest_new.audit.AuditLog;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.audit.ChangeEvent;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentCache;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentSalaryAggregate;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.DepartmentSalaryStatsCache;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.cache.TableVersions;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.BulkImportRowDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.DepartmentRefDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.EmployeeViewDTO;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.PreconditionFailed;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.DepartmentRepository;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeBatchRepository;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.repository.EmployeeRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import jakarta.validation.Validator;
+
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static java.time.LocalDate.parse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +58,27 @@ class MyServiceImplTest {
     @Mock
     private DepartmentRepository departmentRepository;
 
+    @Mock
+    private EmployeeBatchRepository employeeBatchRepository;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private DepartmentSalaryAggregate salaryAggregate;
+
+    @Mock
+    private DepartmentSalaryStatsCache salaryStatsCache;
+
+    @Spy
+    private TableVersions tableVersions = new TableVersions();
+
+    @Mock
+    private AuditLog auditLog;
+
+    @Spy
+    private DepartmentCache departmentCache = new DepartmentCache(16, Duration.ofMinutes(1));
+
     @InjectMocks
     private MyServiceImpl myServiceImpl;
 
@@ -77,43 +125,365 @@ class MyServiceImplTest {
 //                , myServiceImpl.checkEmployeesDepartmentFields(jsonEmployee));
 //    }
 
-//------- checkEmpsSalaryIfMinOrMaxSalaryWasEditedTest() ---------------------------------------------------------------
+//------- updateDepartmentWithSalaryClampTest() ------------------------------------------------------------------------
+    @Test
+    @DisplayName("updateDepartmentWithSalaryClamp_Employees_Salary_Was_Edit")
+    void updateDepartmentWithSalaryClamp_Should_True_When_Employees_Salary_Was_Edit() {
+
+        var repoDepartment = departmentFactory(5, "SALES", 1350D, 5500D);
+        repoDepartment.setVersion(4);
+        var jsonDepartment = departmentFactory(5, null, 2000D, null);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(repoDepartment));
+        when(employeeRepository.clampSalariesToRange(5, 2000D, 5500D)).thenReturn(3);
+
+        assertEquals(3, myServiceImpl.updateDepartmentWithSalaryClamp(jsonDepartment, "\"d5v4\""));
+        assertEquals(departmentFactory(5, "SALES", 2000D, 5500D), jsonDepartment);
+        assertEquals(4, jsonDepartment.getVersion());
+        verify(departmentRepository).save(jsonDepartment);
+        verify(salaryAggregate).reloadDepartment(5);
+        verify(auditLog).publish(argThat(event -> event.action() == ChangeEvent.Action.SALARY_CLAMP
+                && event.values().get("employeeCount").equals(3)));
+    }
+
+    @Test
+    @DisplayName("updateDepartmentWithSalaryClamp_Employees_Salary_Was_Not_Edit")
+    void updateDepartmentWithSalaryClamp_Should_False_When_Employees_Salary_Was_Not_Edit() {
+
+        var repoDepartment = departmentFactory(5, "SALES", 1350D, 5500D);
+        var jsonDepartment = departmentFactory(5, null, null, 6000D);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(repoDepartment));
+        when(employeeRepository.clampSalariesToRange(5, 1350D, 6000D)).thenReturn(0);
+
+        assertEquals(0, myServiceImpl.updateDepartmentWithSalaryClamp(jsonDepartment, null));
+        verify(departmentRepository).save(jsonDepartment);
+        verify(salaryAggregate, never()).reloadDepartment(5);
+    }
+
     @Test
-    @DisplayName("checkEmpsSalaryIfMinOrMaxSalaryWasEdited_Employees_Salary_Was_Edit")
-    void checkEmpsSalaryIfMinOrMaxSalaryWasEdited_Should_True_When_Employees_Salary_Was_Edit() {
+    @DisplayName("updateDepartmentWithSalaryClamp_Edit_Name")
+    void updateDepartmentWithSalaryClamp_Should_Not_Clamp_Salaries_When_Only_Name_Was_Edit() {
+
+        var repoDepartment = departmentFactory(5, "SALES", 1350D, 5500D);
+        var jsonDepartment = departmentFactory(5, "marketing", null, null);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(repoDepartment));
+
+        assertEquals(0, myServiceImpl.updateDepartmentWithSalaryClamp(jsonDepartment, null));
+        verify(departmentRepository).getDepartmentByDepartmentName("MARKETING");
+        verify(salaryAggregate).renameDepartment(5, "MARKETING");
+        verify(employeeRepository, never()).clampSalariesToRange(anyInt(), any(), any());
+    }
+
+    @Test
+    @DisplayName("updateDepartmentWithSalaryClamp_Nothing_Was_Edit")
+    void updateDepartmentWithSalaryClamp_Should_Not_Save_When_Nothing_Was_Edit() {
+
+        var repoDepartment = departmentFactory(5, "SALES", 1350D, 5500D);
+        var jsonDepartment = departmentFactory(5, "sales", null, null);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(repoDepartment));
+
+        assertEquals(0, myServiceImpl.updateDepartmentWithSalaryClamp(jsonDepartment, null));
+        verify(departmentRepository, never()).save(any(Department.class));
+    }
+
+    @Test
+    @DisplayName("updateDepartmentWithSalaryClamp_If_Match_Is_Stale_Version")
+    void updateDepartmentWithSalaryClamp_Should_Throw_Exception_When_If_Match_Is_Stale_Version() {
+
+        var repoDepartment = departmentFactory(5, "SALES", 1350D, 5500D);
+        repoDepartment.setVersion(5);
+        var jsonDepartment = departmentFactory(5, null, 2000D, null);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(repoDepartment));
+
+        assertThrowsExactly(PreconditionFailed.class,
+                () -> myServiceImpl.updateDepartmentWithSalaryClamp(jsonDepartment, "\"d5v4\""));
+        verify(departmentRepository, never()).save(any(Department.class));
+    }
+
+//------- importEmployeesTest() -----------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("importEmployees_Valid_And_Invalid_Rows")
+    void importEmployees_Should_Import_Valid_Rows_And_Report_Invalid_Rows() {
 
         var department = departmentFactory(5, "SALES", 2000D, 6000D);
-        var employee1 = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13")
-                                                                                , 1750D, department);
-        var employee2 = employeeFactory(17, "Anton", "Petrov", parse("1993-12-07")
-                                                                                , 1600D, department);
-        List<Employee> employees = new ArrayList<>();
-        employees.add(employee1);
-        employees.add(employee2);
+        var validEmployee = employeeFactory(0, "ivan", "ivanov", parse("1995-07-13")
+                                                                , 2500D, departmentFactory(5, null, null, null));
+        var lowSalaryEmployee = employeeFactory(0, "anton", "petrov", parse("1993-12-07")
+                                                                , 1600D, departmentFactory(5, null, null, null));
+        var unknownDepartmentEmployee = employeeFactory(0, "oleg", "sidorov", parse("1990-02-21")
+                                                                , 2500D, departmentFactory(9, null, null, null));
+
+        when(departmentRepository.findAll()).thenReturn(List.of(department));
+        doAnswer(invocation -> {
+            List<Employee> batch = invocation.getArgument(0);
+            batch.get(0).setId(101);
+            return null;
+        }).when(employeeBatchRepository).insertAll(anyList());
+
+        var report = myServiceImpl.importEmployees(
+                List.of(validEmployee, lowSalaryEmployee, unknownDepartmentEmployee).iterator());
+
+        assertEquals(new BulkImportReportDTO(1, 2, List.of(
+                BulkImportRowDTO.imported(1, 101),
+                BulkImportRowDTO.failed(2, "The salary must be > value of the minSalary field of employee's department"),
+                BulkImportRowDTO.failed(3, "There is no such raw with ID = 9 in DB"))), report);
+        assertEquals("Ivan", validEmployee.getName());
+        assertEquals(department, validEmployee.getDepartment());
+        verify(salaryAggregate).addEmployee(5, "SALES", 2500D);
+    }
+
+//------- saveEmployeeTest() --------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("saveEmployee_New_Employee_Is_Added_To_Average_Salary")
+    void saveEmployee_Should_Add_Salary_When_Employee_Is_New() {
+
+        var employee = employeeFactory(0, "Ivan", "Ivanov", parse("1995-07-13")
+                , 2500D, departmentFactory(5, "SALES", 2000D, 6000D));
 
-        when(myServiceImpl.employeesInDepartment(anyInt())).thenReturn(employees);
+        myServiceImpl.saveEmployee(employee);
 
-        assertTrue(myServiceImpl.checkEmpsSalaryIfMinOrMaxSalaryWasEdited(department));
+        verify(employeeRepository).save(employee);
+        verify(salaryAggregate).addEmployee(5, "SALES", 2500D);
+        verify(employeeRepository, never()).findById(0);
     }
 
     @Test
-    @DisplayName("checkEmpsSalaryIfMinOrMaxSalaryWasEdited_Employees_Salary_Was_Not_Edit")
-    void checkEmpsSalaryIfMinOrMaxSalaryWasEdited_Should_False_When_Employees_Salary_Was_Not_Edit() {
+    @DisplayName("saveEmployee_Moved_Employee_Is_Moved_In_Average_Salary")
+    void saveEmployee_Should_Move_Salary_When_Employee_Department_Was_Edited() {
+
+        var repoEmployee = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13")
+                , 2500D, departmentFactory(5, "SALES", 2000D, 6000D));
+        var employee = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13")
+                , 3100D, departmentFactory(7, "IT", 3000D, 9000D));
+
+        when(employeeRepository.findById(11)).thenReturn(Optional.of(repoEmployee));
+
+        myServiceImpl.saveEmployee(employee);
+
+        verify(salaryAggregate).removeEmployee(5, 2500D);
+        verify(salaryAggregate).addEmployee(7, "IT", 3100D);
+        verify(salaryStatsCache).invalidate(5);
+        verify(salaryStatsCache).invalidate(7);
+    }
+
+    @Test
+    @DisplayName("saveEmployee_Employee_Without_Department")
+    void saveEmployee_Should_Not_Touch_Average_Salary_When_Department_Is_Null() {
+
+        var repoEmployee = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13"), 2500D, null);
+        var employee = employeeFactory(11, "Oleg", "Ivanov", parse("1995-07-13"), 2500D, null);
+
+        when(employeeRepository.findById(11)).thenReturn(Optional.of(repoEmployee));
+
+        myServiceImpl.saveEmployee(employee);
+
+        verify(employeeRepository).save(employee);
+        verify(salaryAggregate, never()).addEmployee(anyInt(), any(), anyDouble());
+        verify(salaryAggregate, never()).removeEmployee(anyInt(), anyDouble());
+        verify(salaryStatsCache, never()).invalidate(anyInt());
+    }
+
+//------- createEmployeeTest() -----------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("createEmployee_Input_Is_Valid")
+    void createEmployee_Should_True_When_Input_Is_Valid() {
 
         var department = departmentFactory(5, "SALES", 2000D, 6000D);
-        var employee1 = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13")
-                                                                                , 2415D, department);
-        var employee2 = employeeFactory(17, "Anton", "Petrov", parse("1993-12-07")
-                                                                                , 2150D, department);
-        List<Employee> employees = new ArrayList<>();
-        employees.add(employee1);
-        employees.add(employee2);
+        var jsonEmployee = employeeFactory(0, "ivan", "ivanov", parse("1995-07-13")
+                , 2500D, departmentFactory(5, null, null, null));
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(department));
+
+        assertEquals(employeeFactory(0, "Ivan", "Ivanov", parse("1995-07-13"), 2500D, department)
+                , myServiceImpl.createEmployee(jsonEmployee));
+        verify(employeeRepository).save(jsonEmployee);
+        verify(salaryAggregate).addEmployee(5, "SALES", 2500D);
+    }
+
+    @Test
+    @DisplayName("createEmployee_Salary_Is_Out_Of_Department_Range")
+    void createEmployee_Should_Throw_Exception_When_Salary_Is_Out_Of_Department_Range() {
+
+        var jsonEmployee = employeeFactory(0, "ivan", "ivanov", parse("1995-07-13")
+                , 1500D, departmentFactory(5, null, null, null));
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(departmentFactory(5, "SALES", 2000D, 6000D)));
+
+        assertThrowsExactly(IncorrectFieldData.class, () -> myServiceImpl.createEmployee(jsonEmployee));
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+//------- updateEmployeeTest() -----------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("updateEmployee_Edit_Name_Input_Is_Valid")
+    void updateEmployee_Should_True_When_Edit_Name_Input_Is_Valid() {
+
+        var department = departmentFactory(5, "IT_PROG", 1350D, 5500D);
+
+        var jsonEmployee = employeeFactory(7, "ivan", null, null, null, null);
+        var repoEmployee = employeeFactory(7, "Alexey", "Sidorov", parse("1995-04-17"), 1500D, department);
+        repoEmployee.setVersion(3);
+
+        when(employeeRepository.findById(7)).thenReturn(Optional.of(repoEmployee));
+
+        assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 1500D, department)
+                , myServiceImpl.updateEmployee(jsonEmployee, null));
+        assertEquals(3, jsonEmployee.getVersion());
+        verify(employeeRepository).save(jsonEmployee);
+    }
+
+    @Test
+    @DisplayName("updateEmployee_New_Department_With_Big_MinSalary_Input_Is_Valid")
+    void updateEmployee_Should_True_When_New_Department_With_Big_MinSalary_Input_Is_Valid() {
+
+        var repoDepartment = departmentFactory(3, "SALES", 850D, 5000D);
+        var newDepartment = departmentFactory(5, "MANAGEMENT", 6000D, 10000D);
+
+        var jsonEmployee = employeeFactory(7, null, null, null, null, departmentFactory(5, null, null, null));
+        var repoEmployee = employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 2000D, repoDepartment);
+
+        when(employeeRepository.findById(7)).thenReturn(Optional.of(repoEmployee));
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(newDepartment));
+
+        assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 6000D, newDepartment)
+                , myServiceImpl.updateEmployee(jsonEmployee, null));
+        verify(salaryAggregate).removeEmployee(3, 2000D);
+        verify(salaryAggregate).addEmployee(5, "MANAGEMENT", 6000D);
+    }
+
+    @Test
+    @DisplayName("updateEmployee_New_Department_With_Little_MaxSalary_Input_Is_Valid")
+    void updateEmployee_Should_True_When_New_Department_With_Little_MaxSalary_Input_Is_Valid() {
+
+        var repoDepartment = departmentFactory(5, "MANAGEMENT", 6000D, 10000D);
+        var newDepartment = departmentFactory(3, "SALES", 850D, 5000D);
+
+        var jsonEmployee = employeeFactory(7, null, null, null, null, departmentFactory(3, null, null, null));
+        var repoEmployee = employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 6000D, repoDepartment);
+
+        when(employeeRepository.findById(7)).thenReturn(Optional.of(repoEmployee));
+        when(departmentRepository.findById(3)).thenReturn(Optional.of(newDepartment));
+
+        assertEquals(employeeFactory(7, "Ivan", "Sidorov", parse("1995-04-17"), 5000D, newDepartment)
+                , myServiceImpl.updateEmployee(jsonEmployee, null));
+    }
+
+    @Test
+    @DisplayName("updateEmployee_No_Employee_Found_With_Such_Id")
+    void updateEmployee_Should_Throw_Exception_When_No_Employee_Found_With_Such_Id() {
+
+        var jsonEmployee = employeeFactory(3, "Ivan", "Sidorov", null, null, null);
+
+        when(employeeRepository.findById(3)).thenReturn(Optional.empty());
+
+        assertThrowsExactly(NoSuchEntityFoundInDBException.class,
+                () -> myServiceImpl.updateEmployee(jsonEmployee, null));
+    }
+
+    @Test
+    @DisplayName("updateEmployee_Department_Is_Null_And_Edit_Salary")
+    void updateEmployee_Should_Throw_Exception_When_Department_Is_Null_And_Edit_Salary() {
+
+        var jsonEmployee = employeeFactory(3, "Ivan", "Sidorov", null , 2500D, null);
+        var repoEmployee = employeeFactory(3, "Ivan", "Sidorov", parse("1975-05-15") , 1700D, null);
+
+        when(employeeRepository.findById(3)).thenReturn(Optional.of(repoEmployee));
+
+        assertThrowsExactly(IncorrectFieldData.class,
+                () -> myServiceImpl.updateEmployee(jsonEmployee, null));
+    }
+
+    @Test
+    @DisplayName("updateEmployee_Department_Is_Null_Edit_Name")
+    void updateEmployee_Should_Save_When_Department_Is_Null_And_Edit_Name() {
+
+        var jsonEmployee = employeeFactory(3, "oleg", null, null, null, null);
+        var repoEmployee = employeeFactory(3, "Ivan", "Sidorov", parse("1975-05-15") , 1700D, null);
+
+        when(employeeRepository.findById(3)).thenReturn(Optional.of(repoEmployee));
+
+        assertEquals(employeeFactory(3, "Oleg", "Sidorov", parse("1975-05-15"), 1700D, null),
+                myServiceImpl.updateEmployee(jsonEmployee, null));
+        verify(employeeRepository).save(jsonEmployee);
+        verify(salaryAggregate, never()).addEmployee(anyInt(), any(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("updateEmployee_If_Match_Is_Stale_Department_Version")
+    void updateEmployee_Should_Throw_Exception_When_If_Match_Is_Stale_Department_Version() {
+
+        var department = departmentFactory(5, "IT_PROG", 1350D, 5500D);
+        department.setVersion(2);
+
+        var jsonEmployee = employeeFactory(7, "Ivan", null, null, null, null);
+        var repoEmployee = employeeFactory(7, "Alexey", "Sidorov", parse("1995-04-17"), 1500D, department);
+        repoEmployee.setVersion(3);
+
+        when(employeeRepository.findById(7)).thenReturn(Optional.of(repoEmployee));
+
+        assertThrowsExactly(PreconditionFailed.class,
+                () -> myServiceImpl.updateEmployee(jsonEmployee, "\"e7v3-d5v1\""));
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    @Test
+    @DisplayName("updateEmployee_If_Match_Is_Current_Version")
+    void updateEmployee_Should_True_When_If_Match_Is_Current_Version() {
+
+        var department = departmentFactory(5, "IT_PROG", 1350D, 5500D);
+        department.setVersion(2);
+
+        var jsonEmployee = employeeFactory(7, "Ivan", null, null, null, null);
+        var repoEmployee = employeeFactory(7, "Alexey", "Sidorov", parse("1995-04-17"), 1500D, department);
+        repoEmployee.setVersion(3);
+
+        when(employeeRepository.findById(7)).thenReturn(Optional.of(repoEmployee));
+
+        assertEquals(3, myServiceImpl.updateEmployee(jsonEmployee, "W/\"x\", \"e7v3-d5v2\"").getVersion());
+        verify(employeeRepository).save(jsonEmployee);
+    }
+
+//------- deleteTest() --------------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("deleteEmployee_Employee_Is_Not_Found")
+    void deleteEmployee_Should_Throw_Exception_When_Employee_Is_Not_Found() {
+
+        when(employeeRepository.findById(11)).thenReturn(Optional.empty());
+
+        assertThrowsExactly(NoSuchEntityFoundInDBException.class, () -> myServiceImpl.deleteEmployee(11));
+        verify(employeeRepository, never()).delete(any(Employee.class));
+    }
+
+    @Test
+    @DisplayName("deleteDepartment_Department_Is_Not_Found")
+    void deleteDepartment_Should_Throw_Exception_When_Department_Is_Not_Found() {
+
+        when(departmentRepository.deleteDepartmentById(11)).thenReturn(0);
+
+        assertThrowsExactly(NoSuchEntityFoundInDBException.class, () -> myServiceImpl.deleteDepartment(11));
+        verify(salaryAggregate, never()).removeDepartment(11);
+    }
+
+    @Test
+    @DisplayName("deleteDepartment_Department_Has_Employees")
+    void deleteDepartment_Should_Detach_Employees_Before_Delete() {
 
-        when(myServiceImpl.employeesInDepartment(anyInt())).thenReturn(employees);
+        when(employeeRepository.detachFromDepartment(11)).thenReturn(2);
+        when(departmentRepository.deleteDepartmentById(11)).thenReturn(1);
 
-        assertFalse(myServiceImpl.checkEmpsSalaryIfMinOrMaxSalaryWasEdited(department));
+        myServiceImpl.deleteDepartment(11);
+
+        var order = inOrder(employeeRepository, departmentRepository);
+        order.verify(employeeRepository).detachFromDepartment(11);
+        order.verify(departmentRepository).deleteDepartmentById(11);
+        verify(salaryAggregate).removeDepartment(11);
     }
 
+//------- getEmployeeTest() --------------------------------------------------------------------------------------------
     @Test
     @DisplayName("getEmployee_Employee_Is_Found")
     void getEmployee_Should_True_When_Employee_Is_Found() {
@@ -136,6 +506,28 @@ class MyServiceImplTest {
                 () -> myServiceImpl.getEmployee(11));
     }
 
+    @Test
+    @DisplayName("getEmployeeView_Employee_Is_Found")
+    void getEmployeeView_Should_True_When_Employee_Is_Found() {
+
+        var employee = new EmployeeViewDTO(11, "Ivan", "Ivanov", parse("1995-07-13"), 2415D
+                , new DepartmentRefDTO(5, "SALES", 0), 0);
+
+        when(employeeRepository.findEmployeeViewById(11)).thenReturn(Optional.of(employee));
+
+        assertEquals(employee, myServiceImpl.getEmployeeView(11));
+    }
+
+    @Test
+    @DisplayName("getEmployeeView_Employee_Is_Not_Found")
+    void getEmployeeView_Should_Throw_Exception_When_Employee_Is_Not_Found() {
+
+        when(employeeRepository.findEmployeeViewById(11)).thenReturn(Optional.empty());
+
+        assertThrowsExactly(NoSuchEntityFoundInDBException.class,
+                () -> myServiceImpl.getEmployeeView(11));
+    }
+
     @Test
     @DisplayName("getDepartment_Department_Is_Found")
     void getDepartment_Should_True_When_Department_Is_Found() {
@@ -156,4 +548,69 @@ class MyServiceImplTest {
         assertThrowsExactly(NoSuchEntityFoundInDBException.class,
                 () -> myServiceImpl.getDepartment(11));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("getDepartment_Department_Is_Cached")
+    void getDepartment_Should_Read_Repository_Once_Until_Department_Is_Saved() {
+
+        var department = departmentFactory(5, "SALES", 2000D, 6000D);
+
+        when(departmentRepository.findById(5)).thenReturn(Optional.of(department));
+
+        assertEquals(department, myServiceImpl.getDepartment(5));
+        assertEquals(department, myServiceImpl.getDepartment(5));
+        verify(departmentRepository, times(1)).findById(5);
+
+        myServiceImpl.saveDepartment(department);
+
+        assertEquals(department, myServiceImpl.getDepartment(5));
+        verify(departmentRepository, times(2)).findById(5);
+    }
+
+//------- afterCommitTest() --------------------------------------------------------------------------------------------
+    @Test
+    @DisplayName("saveDepartment_Caches_Are_Changed_After_Commit")
+    void saveDepartment_Should_Invalidate_Caches_Only_After_Commit() {
+
+        var department = departmentFactory(5, "SALES", 2000D, 6000D);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            myServiceImpl.saveDepartment(department);
+
+            verify(departmentCache, never()).invalidateAll();
+            verify(salaryAggregate, never()).renameDepartment(anyInt(), any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(departmentCache).invalidateAll();
+        verify(salaryAggregate).renameDepartment(5, "SALES");
+    }
+
+    @Test
+    @DisplayName("deleteEmployee_Rollback_Does_Not_Change_Average_Salary")
+    void deleteEmployee_Should_Not_Change_Average_Salary_When_Transaction_Is_Rolled_Back() {
+
+        var employee = employeeFactory(11, "Ivan", "Ivanov", parse("1995-07-13")
+                , 2500D, departmentFactory(5, "SALES", 2000D, 6000D));
+
+        when(employeeRepository.findById(11)).thenReturn(Optional.of(employee));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            myServiceImpl.deleteEmployee(11);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(employeeRepository).delete(employee);
+        verify(salaryAggregate, never()).removeEmployee(anyInt(), anyDouble());
+        verify(salaryStatsCache, never()).invalidate(anyInt());
+    }
+}
@@ -0,0 +1,103 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.service;
+
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.SalaryBandReportDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.dto.SalaryBandResultDTO;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.NoSuchEntityFoundInDBException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SalaryBandUpdaterTest {
+
+    @Mock
+    private MyService myService;
+
+    private SalaryBandUpdater salaryBandUpdater;
+
+    @BeforeEach
+    void setUp() {
+        salaryBandUpdater = new SalaryBandUpdater(myService,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        salaryBandUpdater.close();
+    }
+
+    private Department departmentFactory(int id, Double minSalary, Double maxSalary) {
+
+        var department = new Department();
+
+        department.setId(id);
+        department.setMinSalary(minSalary);
+        department.setMaxSalary(maxSalary);
+
+        return department;
+    }
+
+    @Test
+    @DisplayName("updateSalaryBands_Results_In_Request_Order")
+    void updateSalaryBands_Should_Report_Each_Department_In_Request_Order() {
+
+        when(myService.updateDepartmentWithSalaryClamp(argThat(d -> d != null && d.getId() == 5), any()))
+                .thenReturn(3);
+        when(myService.updateDepartmentWithSalaryClamp(argThat(d -> d != null && d.getId() == 7), any()))
+                .thenReturn(0);
+        when(myService.updateDepartmentWithSalaryClamp(argThat(d -> d != null && d.getId() == 9), any()))
+                .thenThrow(new NoSuchEntityFoundInDBException(9));
+
+        // Пул из 2 потоков с очередью на 1 задачу: при заполненной очереди департамент изменяется в потоке запроса
+        var report = salaryBandUpdater.updateSalaryBands(List.of(departmentFactory(5, 1500D, null),
+                departmentFactory(7, null, 6000D), departmentFactory(9, 1000D, 2000D)));
+
+        assertEquals(new SalaryBandReportDTO(2, 1, List.of(SalaryBandResultDTO.updated(5, 3),
+                        SalaryBandResultDTO.updated(7, 0),
+                        SalaryBandResultDTO.failed(9, "There is no such raw with ID = 9 in DB"))), report);
+    }
+
+    @Test
+    @DisplayName("updateSalaryBands_Invalid_Departments_Are_Not_Updated")
+    void updateSalaryBands_Should_Report_Invalid_Departments_Without_Update() {
+
+        var named = departmentFactory(5, 1500D, null);
+        named.setDepartmentName("SALES");
+
+        var report = salaryBandUpdater.updateSalaryBands(List.of(departmentFactory(0, 1500D, null), named,
+                departmentFactory(7, null, null), departmentFactory(9, 100D, null)));
+
+        assertEquals(0, report.updated());
+        assertEquals(4, report.failed());
+        assertEquals(" The minSalary field must have a min value of 500 \n", report.departments().get(3).error());
+        verify(myService, never()).updateDepartmentWithSalaryClamp(any(), any());
+    }
+
+    @Test
+    @DisplayName("updateSalaryBands_Repeated_Department")
+    void updateSalaryBands_Should_Report_Repeated_Department() {
+
+        when(myService.updateDepartmentWithSalaryClamp(any(), any())).thenReturn(1);
+
+        var report = salaryBandUpdater.updateSalaryBands(List.of(departmentFactory(5, 1500D, null),
+                departmentFactory(5, null, 4000D)));
+
+        assertEquals(List.of(SalaryBandResultDTO.updated(5, 1),
+                SalaryBandResultDTO.failed(5, "The department is repeated in the request")), report.departments());
+    }
+}
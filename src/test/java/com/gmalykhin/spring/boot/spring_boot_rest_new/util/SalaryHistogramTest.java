@@ -0,0 +1,72 @@
+package com.gmalykhin.spring.boot.spring_boot_rest_new.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalaryHistogramTest {
+
+    private SalaryHistogram histogramFactory(double... salaries) {
+
+        var histogram = new SalaryHistogram(5, "SALES", 1000D, 2000D, 10);
+
+        for (var salary : salaries) {
+            histogram.add(salary);
+        }
+        return histogram;
+    }
+
+    @Test
+    @DisplayName("toDTO_Salaries_Are_Counted_In_Buckets")
+    void toDTO_Should_Count_Salaries_In_Buckets_And_Estimate_Percentiles() {
+
+        var stats = histogramFactory(1000, 1050, 1150, 1250, 1350, 1450, 1550, 1650, 1750, 2000).toDTO();
+
+        assertEquals(10, stats.employeeCount());
+        assertEquals(1000D, stats.lowestSalary());
+        assertEquals(2000D, stats.highestSalary());
+        assertEquals(1420D, stats.averageSalary());
+        assertEquals(1400D, stats.medianSalary());
+        assertEquals(1800D, stats.p90Salary());
+        assertEquals(10, stats.buckets().size());
+        assertEquals(2, stats.buckets().get(0).count());
+        assertEquals(1100D, stats.buckets().get(0).to());
+        // maxSalary попадает в последний интервал
+        assertEquals(1, stats.buckets().get(9).count());
+        assertEquals(2000D, stats.buckets().get(9).to());
+    }
+
+    @Test
+    @DisplayName("toDTO_Department_Without_Employees")
+    void toDTO_Should_Return_Null_Statistics_When_There_Are_No_Employees() {
+
+        var stats = histogramFactory().toDTO();
+
+        assertEquals(0, stats.employeeCount());
+        assertNull(stats.lowestSalary());
+        assertNull(stats.averageSalary());
+        assertNull(stats.medianSalary());
+        assertTrue(stats.buckets().stream().allMatch(bucket -> bucket.count() == 0));
+    }
+
+    @Test
+    @DisplayName("merge_Histograms_Are_Added")
+    void merge_Should_Return_Same_Statistics_As_One_Pass() {
+
+        var merged = histogramFactory(1000, 1050, 1150, 1250, 1350);
+        merged.merge(histogramFactory(1450, 1550, 1650, 1750, 2000));
+
+        assertEquals(histogramFactory(1000, 1050, 1150, 1250, 1350, 1450, 1550, 1650, 1750, 2000).toDTO(),
+                merged.toDTO());
+    }
+
+    @Test
+    @DisplayName("merge_Different_Salary_Range")
+    void merge_Should_Throw_Exception_When_Salary_Range_Is_Different() {
+
+        var other = new SalaryHistogram(5, "SALES", 1000D, 2500D, 10);
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> histogramFactory(1000).merge(other));
+    }
+}
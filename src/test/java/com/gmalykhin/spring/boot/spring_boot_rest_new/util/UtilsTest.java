@@ -1,6 +1,9 @@
 package com.gmalykhin.spring.boot.spring_boot_rest_new.util;
 
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Department;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.entity.Employee;
 import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.IncorrectFieldData;
+import com.gmalykhin.spring.boot.spring_boot_rest_new.exception_handling.PreconditionFailed;
 import org.junit.jupiter.api.Test;
 
 import static java.time.LocalDate.parse;
@@ -33,5 +36,100 @@ class UtilsTest {
         assertThrowsExactly(IncorrectFieldData.class, () -> Utils.checkBirthday(parse("2006-08-18")));
     }
 
+    @Test
+    void checkEntityFieldsIfNull_Should_Throw_Exception_With_Missed_Fields() {
+
+        var employee = new Employee();
+        employee.setName("Ivan");
+        employee.setSalary(1500D);
+
+        var exception = assertThrowsExactly(IncorrectFieldData.class, () -> Utils.checkEntityFieldsIfNull(employee));
+        assertEquals("You missed the required field(s): surname, birthday, department", exception.getMessage());
+    }
+
+    @Test
+    void checkEntityFieldsIfNull_Should_Ignore_Employee_List_Of_Department() {
+
+        var department = new Department();
+        department.setDepartmentName("SALES");
+        department.setMinSalary(850D);
+        department.setMaxSalary(5000D);
+
+        assertDoesNotThrow(() -> Utils.checkEntityFieldsIfNull(department));
+    }
+
+    @Test
+    void checkEntityFieldsIfNullThenFill_Should_Fill_Only_Null_Fields() {
+
+        var department = new Department();
+        department.setId(3);
+        department.setMinSalary(1000D);
+
+        var repoDepartment = new Department();
+        repoDepartment.setId(3);
+        repoDepartment.setDepartmentName("SALES");
+        repoDepartment.setMinSalary(850D);
+        repoDepartment.setMaxSalary(5000D);
+
+        Utils.checkEntityFieldsIfNullThenFill(department, repoDepartment);
+
+        assertEquals("SALES", department.getDepartmentName());
+        assertEquals(1000D, department.getMinSalary());
+        assertEquals(5000D, department.getMaxSalary());
+    }
+
+    @Test
+    void checkIfMatch_Should_Pass_When_Header_Is_Absent_Or_Matches() {
+
+        assertDoesNotThrow(() -> Utils.checkIfMatch(null, "d1v4"));
+        assertDoesNotThrow(() -> Utils.checkIfMatch("*", "d1v4"));
+        assertDoesNotThrow(() -> Utils.checkIfMatch("\"d1v3\", \"d1v4\"", "d1v4"));
+    }
 
-}
\ No newline at end of file
+    @Test
+    void checkIfMatch_Should_Throw_Exception_When_Tag_Is_Stale_Or_Weak() {
+
+        assertThrowsExactly(PreconditionFailed.class, () -> Utils.checkIfMatch("\"d1v3\"", "d1v4"));
+        assertThrowsExactly(PreconditionFailed.class, () -> Utils.checkIfMatch("W/\"d1v4\"", "d1v4"));
+    }
+
+    @Test
+    void matchIfNoneMatch_Should_Return_Matched_Tag_When_Weak_Or_Strong_Value_Matches() {
+
+        assertNull(Utils.matchIfNoneMatch(null, "1-d0", "1-d0-gzip"));
+        assertNull(Utils.matchIfNoneMatch("\"1-d1\"", "1-d0", "1-d0-gzip"));
+        assertEquals("1-d0", Utils.matchIfNoneMatch("*", "1-d0", "1-d0-gzip"));
+        assertEquals("1-d0", Utils.matchIfNoneMatch("W/\"1-d0\"", "1-d0", "1-d0-gzip"));
+        assertEquals("1-d0-gzip", Utils.matchIfNoneMatch("\"1-d1\", \"1-d0-gzip\"", "1-d0", "1-d0-gzip"));
+    }
+
+    @Test
+    void csvField_Should_Quote_Only_Values_With_Separators() {
+
+        assertEquals("SALES", Utils.csvField("SALES"));
+        assertEquals("2500.0", Utils.csvField(2500D));
+        assertEquals("", Utils.csvField(null));
+        assertEquals("\"Smith, \"\"Jr\"\"\"", Utils.csvField("Smith, \"Jr\""));
+    }
+
+    @Test
+    void prefersJson_Should_Prefer_Json_Unless_Other_Format_Is_Requested() {
+
+        assertTrue(Utils.prefersJson(null));
+        assertTrue(Utils.prefersJson("*/*"));
+        assertTrue(Utils.prefersJson("application/json, application/x-jackson-smile;q=0.5"));
+        assertFalse(Utils.prefersJson("application/x-jackson-smile"));
+        assertFalse(Utils.prefersJson("application/x-jackson-smile, */*;q=0.1"));
+        assertFalse(Utils.prefersJson("not a media type"));
+    }
+
+    @Test
+    void acceptsGzip_Should_Be_False_When_Gzip_Is_Absent_Or_Rejected() {
+
+        assertTrue(Utils.acceptsGzip("gzip, deflate, br"));
+        assertTrue(Utils.acceptsGzip("*"));
+        assertFalse(Utils.acceptsGzip(null));
+        assertFalse(Utils.acceptsGzip("deflate, br"));
+        assertFalse(Utils.acceptsGzip("gzip;q=0, deflate"));
+    }
+}